@@ -0,0 +1,40 @@
+package webclient.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import webclient.config.WebClientConfig;
+
+/**
+ * the web client configuration of the library alone, without server nor auto configuration,
+ * so that the benchmarked client is wired exactly as in the applications
+ */
+@SpringBootConfiguration
+@Import(WebClientConfig.class)
+class BenchmarkApplication {
+
+    /**
+     * the meters of the client are recorded as in the applications, the global registry would drop them
+     */
+    @Bean
+    MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    /**
+     * @param properties the web.client properties, as key=value
+     */
+    static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .properties(properties)
+                .run();
+    }
+}
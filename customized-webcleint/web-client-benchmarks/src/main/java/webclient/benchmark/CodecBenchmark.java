@@ -0,0 +1,120 @@
+package webclient.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * serialization cost of json, cbor and smile for ProductDto shaped data, a list of
+ * { productId, name } as exchanged between order-service and product-service.
+ * the size in bytes of the payload is reported next to the scores, as the bytes secondary result:
+ * <pre>
+ * java -jar target/benchmarks.jar CodecBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    private static final TypeReference<List<ProductDto>> TYPE = new TypeReference<>() {
+    };
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    /**
+     * items of the list
+     */
+    @Param({"1", "100", "10000"})
+    private int items;
+
+    private ObjectMapper mapper;
+
+    private List<ProductDto> products;
+
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = mapper(format);
+        products = products(items);
+        payload = mapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] encode(PayloadSize size) throws IOException {
+        byte[] encoded = mapper.writeValueAsBytes(products);
+        size.bytes = encoded.length;
+        return encoded;
+    }
+
+    @Benchmark
+    public List<ProductDto> decode(PayloadSize size) throws IOException {
+        size.bytes = payload.length;
+        return mapper.readValue(payload, TYPE);
+    }
+
+    private static ObjectMapper mapper(String format) {
+        switch (format) {
+            case "cbor":
+                return new CBORMapper();
+            case "smile":
+                return new SmileMapper();
+            default:
+                return new ObjectMapper();
+        }
+    }
+
+    static List<ProductDto> products(int size) {
+        List<ProductDto> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(new ProductDto(100_000L + i, "product " + i));
+        }
+        return products;
+    }
+
+    /**
+     * size of the encoded list, set by every call as jmh clears it at the start of an iteration
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long bytes;
+    }
+
+    public static class ProductDto {
+        public Long productId;
+        public String name;
+
+        public ProductDto() {
+        }
+
+        ProductDto(Long productId, String name) {
+            this.productId = productId;
+            this.name = name;
+        }
+    }
+}
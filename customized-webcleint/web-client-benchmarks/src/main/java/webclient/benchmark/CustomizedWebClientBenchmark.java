@@ -0,0 +1,135 @@
+package webclient.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import webclient.application.CustomizedWebClient;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * full call path of the direct server client, filters, codecs, metrics, logging and connection pool,
+ * against a stub server on the loopback interface.
+ * <p>
+ * An operation is a batch of {@code concurrency} calls in flight at the same time, the score is per batch.
+ * Allocations per operation are reported with the gc profiler:
+ * <pre>
+ * mvn install                                      (in web-client-library)
+ * mvn package                                      (in web-client-benchmarks)
+ * java -jar target/benchmarks.jar -prof gc
+ * java -jar target/benchmarks.jar CustomizedWebClientBenchmark.get -p payloadSize=16384 -p logging=false
+ * </pre>
+ * The encoding and decoding of the bodies alone are measured by {@link CodecBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomizedWebClientBenchmark {
+
+    private static final MultiValueMap<String, String> NO_PARAMS = new LinkedMultiValueMap<>();
+
+    private static final Product PRODUCT = new Product(1L, "product", "description of the product", BigDecimal.ONE);
+
+    /**
+     * approximate size in bytes of the body returned by GET
+     */
+    @Param({"1024", "16384", "131072"})
+    private int payloadSize;
+
+    /**
+     * calls in flight at the same time in an operation
+     */
+    @Param({"1", "16", "64"})
+    private int concurrency;
+
+    /**
+     * every exchange is logged when set, none otherwise
+     */
+    @Param({"false", "true"})
+    private boolean logging;
+
+    private StubServer server;
+
+    private ConfigurableApplicationContext context;
+
+    private CustomizedWebClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = new StubServer(payloadSize);
+        context = BenchmarkApplication.start(
+                "web.client.direct-server.enabled=true",
+                "web.client.direct-server.url=" + server.getUrl(),
+                "web.client.direct-server.path.products.uri=" + StubServer.PATH,
+                "web.client.direct-server.logging.policy=" + (logging ? "ALL" : "NONE"),
+                "web.client.direct-server.pool.max-connections=" + Math.max(concurrency, 16)
+        );
+        client = context.getBean("defaultWebClientWithDirectServer", CustomizedWebClient.class);
+
+        // fails the trial rather than measuring errors
+        get();
+        post();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        if (server != null) {
+            server.dispose();
+        }
+    }
+
+    @Benchmark
+    public List<?> get() {
+        return batch(i -> client.get(Product[].class, StubServer.PATH, NO_PARAMS, MediaType.APPLICATION_JSON));
+    }
+
+    @Benchmark
+    public List<?> getAndRetry() {
+        return batch(i -> client.getAndRetry(Product[].class, StubServer.PATH, NO_PARAMS, MediaType.APPLICATION_JSON));
+    }
+
+    @Benchmark
+    public List<?> post() {
+        return batch(i -> client.post(PRODUCT, Product.class, StubServer.PATH, MediaType.APPLICATION_JSON, MediaType.APPLICATION_JSON));
+    }
+
+    @Benchmark
+    public List<?> postAndRetry() {
+        return batch(i -> client.postAndRetry(PRODUCT, Product.class, StubServer.PATH, MediaType.APPLICATION_JSON, MediaType.APPLICATION_JSON));
+    }
+
+    /**
+     * @return the bodies, returned so that the decoding is not eliminated
+     */
+    private <T> List<T> batch(IntFunction<Mono<T>> call) {
+        return Flux.range(0, concurrency)
+                .flatMap(call::apply, concurrency)
+                .collectList()
+                .block();
+    }
+}
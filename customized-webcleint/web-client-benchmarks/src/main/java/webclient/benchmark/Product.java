@@ -0,0 +1,24 @@
+package webclient.benchmark;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * body of the benchmarked calls, shaped like the products exchanged by the example services
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Product {
+
+    private Long productId;
+
+    private String name;
+
+    private String description;
+
+    private BigDecimal price;
+}
@@ -0,0 +1,71 @@
+package webclient.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * reactor netty server on the loopback interface, answering with a payload prepared once.
+ * GET /api/products returns a list of products of about the payload size, POST /api/products drains the body
+ * and returns a single product
+ */
+class StubServer {
+
+    static final String PATH = "/api/products";
+
+    private final DisposableServer server;
+
+    /**
+     * @param payloadSize approximate size in bytes of the list returned by GET
+     */
+    StubServer(int payloadSize) throws JsonProcessingException {
+        final ObjectMapper mapper = new ObjectMapper();
+        final byte[] list = mapper.writeValueAsBytes(products(payloadSize));
+        final byte[] single = mapper.writeValueAsBytes(products(1).get(0));
+
+        this.server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes
+                        .get(PATH, (request, response) -> response
+                                .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                                .sendByteArray(Mono.just(list)))
+                        .post(PATH, (request, response) -> request.receive()
+                                .then()
+                                .then(response
+                                        .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                                        .sendByteArray(Mono.just(single))
+                                        .then())))
+                .bindNow();
+    }
+
+    String getUrl() {
+        return "http://127.0.0.1:" + server.port();
+    }
+
+    void dispose() {
+        server.disposeNow();
+    }
+
+    /**
+     * @param payloadSize approximate size in bytes of the json list, at least one product
+     */
+    static List<Product> products(int payloadSize) {
+        final List<Product> products = new ArrayList<>();
+        int size = 2;
+        for (long id = 1; products.isEmpty() || size < payloadSize; id++) {
+            final Product product = new Product(id, "product " + id, "description of the product " + id, BigDecimal.valueOf(id, 2));
+            products.add(product);
+            // the serialized size of a product of this shape
+            size += 100;
+        }
+        return products;
+    }
+}
@@ -1,24 +1,83 @@
 package webclient.application;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.client.reactive.ClientHttpRequest;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
+import webclient.batch.BatchExecutor;
+import webclient.cache.ResponseCache;
+import webclient.coalescing.RequestCoalescer;
+import webclient.codec.CodecNegotiation;
+import webclient.compression.RequestCompression;
 import webclient.config.WebClientProperties;
+import webclient.metrics.WebClientMetrics;
+import webclient.resilience.AdaptiveConcurrencyLimiter;
+import webclient.resilience.CircuitBreakerRegistry;
+import webclient.resilience.RateLimiterRegistry;
+import webclient.resilience.RequestHedger;
+import webclient.resilience.RetryBudget;
+import webclient.resilience.RetryPolicy;
+import webclient.timeout.CallTimeouts;
+
+import java.lang.reflect.Array;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 @Slf4j
-@Builder
 public class CustomizedWebClient implements ICustomizedWebClient {
 
+    public static final String APIM = "apim";
+    public static final String DIRECT_SERVER = "direct";
+
+    private final String directServerName;
     private final WebClient webClientWithApim;
     private final WebClient webClientDirectServer;
     private final WebClientProperties properties;
+    private final WebClientMetrics metrics;
+    private final PathKeyResolver apimPaths;
+    private final PathKeyResolver directServerPaths;
+    private final ResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final CircuitBreakerRegistry apimCircuitBreakers;
+    private final CircuitBreakerRegistry directServerCircuitBreakers;
+    private final RetryPolicy apimRetryPolicy;
+    private final RetryPolicy directServerRetryPolicy;
+    private final RequestHedger requestHedger;
+    private final AdaptiveConcurrencyLimiter apimConcurrencyLimiter;
+    private final AdaptiveConcurrencyLimiter directServerConcurrencyLimiter;
+    private final RateLimiterRegistry apimRateLimiters;
+    private final RateLimiterRegistry directServerRateLimiters;
+    private final CodecNegotiation apimCodecs;
+    private final CodecNegotiation directServerCodecs;
+    private final CallTimeouts apimTimeouts;
+    private final CallTimeouts directServerTimeouts;
 
     /**
      * @param webClientWithApim
@@ -26,9 +85,62 @@ public class CustomizedWebClient implements ICustomizedWebClient {
      * @param properties
      */
     public CustomizedWebClient(WebClient webClientWithApim, WebClient webClientDirectServer, WebClientProperties properties) {
+        this(webClientWithApim, webClientDirectServer, properties, null);
+    }
+
+    /**
+     * @param webClientWithApim
+     * @param webClientDirectServer
+     * @param properties
+     * @param meterRegistry         the global registry is used when null
+     */
+    @Builder
+    public CustomizedWebClient(WebClient webClientWithApim, WebClient webClientDirectServer, WebClientProperties properties, @Nullable MeterRegistry meterRegistry) {
+        this(DIRECT_SERVER, webClientWithApim, webClientDirectServer, properties, meterRegistry);
+    }
+
+    /**
+     * @param directServerName      name of the direct server in the meters, direct or the name of a backend
+     * @param webClientWithApim
+     * @param webClientDirectServer
+     * @param properties
+     * @param meterRegistry         the global registry is used when null
+     */
+    public CustomizedWebClient(String directServerName, WebClient webClientWithApim, WebClient webClientDirectServer,
+                               WebClientProperties properties, @Nullable MeterRegistry meterRegistry) {
+        this.directServerName = directServerName;
         this.webClientWithApim = webClientWithApim;
         this.webClientDirectServer = webClientDirectServer;
         this.properties = properties;
+        this.metrics = new WebClientMetrics(meterRegistry == null ? Metrics.globalRegistry : meterRegistry);
+        this.apimPaths = new PathKeyResolver(properties.getApim() == null ? null : properties.getApim().getPath());
+        this.directServerPaths = new PathKeyResolver(properties.getDirectServer() == null ? null : properties.getDirectServer().getPath());
+        this.responseCache = new ResponseCache(metrics);
+        this.requestCoalescer = new RequestCoalescer();
+        this.apimCircuitBreakers = new CircuitBreakerRegistry(APIM,
+                properties.getApim() == null ? null : properties.getApim().getCircuitBreaker(), metrics.getRegistry());
+        this.directServerCircuitBreakers = new CircuitBreakerRegistry(directServerName,
+                properties.getDirectServer() == null ? null : properties.getDirectServer().getCircuitBreaker(), metrics.getRegistry());
+        this.apimRetryPolicy = new RetryPolicy(properties.getRetry());
+        this.directServerRetryPolicy = new RetryPolicy(properties.getDirectServer() == null || properties.getDirectServer().getRetry() == null
+                ? properties.getRetry() : properties.getDirectServer().getRetry());
+        this.requestHedger = new RequestHedger(metrics.getRegistry());
+        this.apimConcurrencyLimiter = properties.getApim() == null ? null
+                : new AdaptiveConcurrencyLimiter(APIM, properties.getApim().getConcurrencyLimit(), metrics.getRegistry());
+        this.directServerConcurrencyLimiter = properties.getDirectServer() == null ? null
+                : new AdaptiveConcurrencyLimiter(directServerName, properties.getDirectServer().getConcurrencyLimit(), metrics.getRegistry());
+        this.apimRateLimiters = new RateLimiterRegistry(APIM,
+                properties.getApim() == null ? null : properties.getApim().getRateLimit(), metrics.getRegistry());
+        this.directServerRateLimiters = new RateLimiterRegistry(directServerName,
+                properties.getDirectServer() == null ? null : properties.getDirectServer().getRateLimit(), metrics.getRegistry());
+        this.apimCodecs = new CodecNegotiation(APIM,
+                properties.getApim() == null ? null : properties.getApim().getCodec(), metrics.getRegistry());
+        this.directServerCodecs = new CodecNegotiation(directServerName,
+                properties.getDirectServer() == null ? null : properties.getDirectServer().getCodec(), metrics.getRegistry());
+        this.apimTimeouts = properties.getApim() == null ? new CallTimeouts(APIM, null, null, metrics.getRegistry())
+                : new CallTimeouts(APIM, properties.getApim().getCallTimeout(), properties.getApim().getPath(), metrics.getRegistry());
+        this.directServerTimeouts = properties.getDirectServer() == null ? new CallTimeouts(directServerName, null, null, metrics.getRegistry())
+                : new CallTimeouts(directServerName, properties.getDirectServer().getCallTimeout(), properties.getDirectServer().getPath(), metrics.getRegistry());
     }
 
     private static Mono<Throwable> logError(Throwable throwable) {
@@ -43,61 +155,21 @@ public class CustomizedWebClient implements ICustomizedWebClient {
     @Override
     public <T, V> Mono<T> postWithApimAndRetry(V dataPlayLoad, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept) {
         Assert.isTrue(this.webClientWithApim != null, "apim must be enabled ");
-        if (null == accept) {
-            accept = MediaType.ALL;
-        }
 
-        return this.webClientWithApim.post()
-                .uri(uriBuilder -> uriBuilder
-                        .path(path)
-                        .build()
-                )
-                .contentType(contentType == null ? MediaType.APPLICATION_JSON : contentType)
-                .accept(accept)
-                .bodyValue(dataPlayLoad)
-                .retrieve()
-                .bodyToMono(type)
-                .doOnError(CustomizedWebClient::logError)
-                .retryWhen(manageRetry());
+        return exchange(call(APIM, HttpMethod.POST, path, null, dataPlayLoad, contentType, accept, true), type);
     }
 
     public <T, V> Mono<T> postWithApim(V dataPlayLoad, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept) {
         Assert.isTrue(this.webClientWithApim != null, "apim must be enabled ");
-        if (null == accept) {
-            accept = MediaType.ALL;
-        }
 
-        return this.webClientWithApim.post()
-                .uri(uriBuilder -> uriBuilder
-                        .path(path)
-                        .build()
-                )
-                .contentType(contentType == null ? MediaType.APPLICATION_JSON : contentType)
-                .accept(accept)
-                .bodyValue(dataPlayLoad)
-                .retrieve()
-                .bodyToMono(type)
-                .doOnError(CustomizedWebClient::logError);
+        return exchange(call(APIM, HttpMethod.POST, path, null, dataPlayLoad, contentType, accept, false), type);
     }
 
     @Override
     public <T> Mono<T> getWithApimAndRetry(Class<T> type, String path, MultiValueMap<String, String> params, @Nullable MediaType accept) {
         Assert.isTrue(this.webClientWithApim != null, "apim must be enabled ");
-        if (null == accept) {
-            accept = MediaType.ALL;
-        }
 
-        return this.webClientWithApim.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path(path)
-                        .queryParams(params)
-                        .build()
-                )
-                .accept(accept)
-                .retrieve()
-                .bodyToMono(type)
-                .doOnError(CustomizedWebClient::logError)
-                .retryWhen(manageRetry());
+        return exchange(call(APIM, HttpMethod.GET, path, params, null, null, accept, true), type);
     }
 
     @Override
@@ -110,144 +182,438 @@ public class CustomizedWebClient implements ICustomizedWebClient {
         return webClientWithApim;
     }
 
+    /**
+     * @return direct or the name of the backend this client calls
+     */
+    public String getDirectServerName() {
+        return directServerName;
+    }
+
+    public CircuitBreakerRegistry getApimCircuitBreakers() {
+        return apimCircuitBreakers;
+    }
+
+    public CircuitBreakerRegistry getDirectServerCircuitBreakers() {
+        return directServerCircuitBreakers;
+    }
+
+    /**
+     * a GET through the whole call path of the client, without retry, its response is decoded and dropped
+     *
+     * @param client apim, direct or the name of a backend
+     * @param path
+     */
+    public Mono<Void> warmUp(String client, String path) {
+        Assert.isTrue((APIM.equals(client) ? webClientWithApim : webClientDirectServer) != null, client + " must be enabled ");
+
+        return exchange(call(client, HttpMethod.GET, path, null, null, null, null, false), Object.class).then();
+    }
+
     @Override
     public <T, V> Mono<T> postAndRetry(V dataPlayLoad, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept) {
         Assert.isTrue(this.webClientDirectServer != null, "direct server must be enabled ");
 
-        if (null == accept) {
-            accept = MediaType.ALL;
-        }
-
-        return this.webClientDirectServer.post()
-                .uri(uriBuilder -> uriBuilder
-                        .path(path)
-                        .build()
-                )
-                .contentType(contentType == null ? MediaType.APPLICATION_JSON : contentType)
-                .accept(accept)
-                .bodyValue(dataPlayLoad)
-                .retrieve()
-                .bodyToMono(type)
-                .doOnError(CustomizedWebClient::logError)
-                .retryWhen(manageRetry())
-                ;
+        return exchange(call(directServerName, HttpMethod.POST, path, null, dataPlayLoad, contentType, accept, true), type);
     }
 
     @Override
     public <T> Mono<T> getAndRetry(Class<T> type, String path, MultiValueMap<String, String> params, @Nullable MediaType accept) {
         Assert.isTrue(this.webClientDirectServer != null, "direct server must be enabled ");
 
-        if (null == accept) {
-            accept = MediaType.ALL;
-        }
-
-        return this.webClientDirectServer.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path(path)
-                        .queryParams(params)
-                        .build()
-                )
-                .accept(accept)
-                .retrieve()
-                .bodyToMono(type)
-                .doOnError(CustomizedWebClient::logError)
-                .retryWhen(manageRetry());
+        return exchange(call(directServerName, HttpMethod.GET, path, params, null, null, accept, true), type);
     }
 
     @Override
     public <T> Mono<T> get(Class<T> type, String path, MultiValueMap<String, String> params, @Nullable MediaType accept) {
         Assert.isTrue(this.webClientDirectServer != null, "direct server must be enabled ");
 
-        if (null == accept) {
-            accept = MediaType.ALL;
-        }
-
-        return this.webClientDirectServer.get()
-                .uri(uriBuilder -> uriBuilder
-                        .path(path)
-                        .queryParams(params)
-                        .build()
-                )
-                .accept(accept)
-                .retrieve()
-                .bodyToMono(type)
-                .doOnError(CustomizedWebClient::logError)
-                ;
-
+        return exchange(call(directServerName, HttpMethod.GET, path, params, null, null, accept, false), type);
     }
 
     @Override
     public <T, V> Mono<T> post(V dataPlayLoad, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept) {
         Assert.isTrue(this.webClientDirectServer != null, "direct server must be enabled ");
 
-        if (null == accept) {
-            accept = MediaType.ALL;
-        }
-
-        return this.webClientDirectServer.post()
-                .uri(uriBuilder -> uriBuilder
-                        .path(path)
-                        .build()
-                )
-                .contentType(contentType == null ? MediaType.APPLICATION_JSON : contentType)
-                .accept(accept)
-                .bodyValue(dataPlayLoad)
-                .retrieve()
-                .bodyToMono(type)
-                .doOnError(CustomizedWebClient::logError)
-                ;
+        return exchange(call(directServerName, HttpMethod.POST, path, null, dataPlayLoad, contentType, accept, false), type);
     }
 
+    /**
+     * retry spec of the direct server, for calls made outside of this client
+     */
     public Retry manageRetry() {
-        return Retry
-                .backoff(properties.getRetry().getMaxAttempts(), properties.getRetry().getMinBackoff())
-                .doAfterRetry(objectRetryContext -> {
-                    if (log.isInfoEnabled()) {
-                        log.info("Error occured {}, retrying (attempts {})", objectRetryContext.failure().getLocalizedMessage(), objectRetryContext.totalRetries());
-                    }
-                });
+        return directServerRetryPolicy.retry(null, () -> {
+        });
+    }
+
+    private Retry manageRetry(WebClientCall call) {
+        return retryPolicy(call).retry(call.getMethod(), () -> metrics.retry(call.getClient(), call.getMethod(), call.getPathKey()));
+    }
+
+    private RetryPolicy retryPolicy(WebClientCall call) {
+        return APIM.equals(call.getClient()) ? apimRetryPolicy : directServerRetryPolicy;
     }
 
     @Override
     public <T, V> Mono<T> put(V dataPayload, Class<T> type, String path, MediaType contentType, MediaType accept) {
         Assert.isTrue(this.webClientDirectServer != null, "direct server must be enabled ");
 
-        if (null == accept) {
-            accept = MediaType.ALL;
+        return exchange(call(directServerName, HttpMethod.PUT, path, null, dataPayload, contentType, accept, false), type);
+    }
+
+    @Override
+    public <T> Mono<T> delete(Class<T> type, String path, MultiValueMap<String, String> params, MediaType accept) {
+        Assert.isTrue(this.webClientDirectServer != null, "direct server must be enabled ");
+
+        return exchange(call(directServerName, HttpMethod.DELETE, path, params, null, null, accept, false), type);
+    }
+
+    @Override
+    public <T> Flux<T> getFlux(Class<T> type, String path, MultiValueMap<String, String> params, @Nullable MediaType accept) {
+        Assert.isTrue(this.webClientDirectServer != null, "direct server must be enabled ");
+
+        return stream(call(directServerName, HttpMethod.GET, path, params, null, null, accept, false), type);
+    }
+
+    @Override
+    public <T> Flux<T> getFluxAndRetry(Class<T> type, String path, MultiValueMap<String, String> params, @Nullable MediaType accept) {
+        Assert.isTrue(this.webClientDirectServer != null, "direct server must be enabled ");
+
+        return stream(call(directServerName, HttpMethod.GET, path, params, null, null, accept, true), type);
+    }
+
+    @Override
+    public <T> Flux<T> getFluxWithApimAndRetry(Class<T> type, String path, MultiValueMap<String, String> params, @Nullable MediaType accept) {
+        Assert.isTrue(this.webClientWithApim != null, "apim must be enabled ");
+
+        return stream(call(APIM, HttpMethod.GET, path, params, null, null, accept, true), type);
+    }
+
+    @Override
+    public <T, V> Flux<T> postFlux(V dataPayload, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept) {
+        Assert.isTrue(this.webClientDirectServer != null, "direct server must be enabled ");
+
+        return stream(call(directServerName, HttpMethod.POST, path, null, dataPayload, contentType, accept, false), type);
+    }
+
+    @Override
+    public <T, V> Flux<T> postFluxAndRetry(V dataPayload, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept) {
+        Assert.isTrue(this.webClientDirectServer != null, "direct server must be enabled ");
+
+        return stream(call(directServerName, HttpMethod.POST, path, null, dataPayload, contentType, accept, true), type);
+    }
+
+    @Override
+    public <T, V> Flux<T> postFluxWithApim(V dataPayload, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept) {
+        Assert.isTrue(this.webClientWithApim != null, "apim must be enabled ");
+
+        return stream(call(APIM, HttpMethod.POST, path, null, dataPayload, contentType, accept, false), type);
+    }
+
+    @Override
+    public <T, V> Flux<T> postFluxWithApimAndRetry(V dataPayload, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept) {
+        Assert.isTrue(this.webClientWithApim != null, "apim must be enabled ");
+
+        return stream(call(APIM, HttpMethod.POST, path, null, dataPayload, contentType, accept, true), type);
+    }
+
+    @Override
+    public Mono<Path> download(String path, MultiValueMap<String, String> params, Path target) {
+        Assert.isTrue(this.webClientDirectServer != null, "direct server must be enabled ");
+
+        return download(call(directServerName, HttpMethod.GET, path, params, null, null, MediaType.ALL, false), target);
+    }
+
+    @Override
+    public Mono<Path> downloadWithApim(String path, MultiValueMap<String, String> params, Path target) {
+        Assert.isTrue(this.webClientWithApim != null, "apim must be enabled ");
+
+        return download(call(APIM, HttpMethod.GET, path, params, null, null, MediaType.ALL, false), target);
+    }
+
+    @Override
+    public Flux<DataBuffer> getDataBuffers(String path, MultiValueMap<String, String> params, @Nullable MediaType accept) {
+        Assert.isTrue(this.webClientDirectServer != null, "direct server must be enabled ");
+
+        return stream(call(directServerName, HttpMethod.GET, path, params, null, null, accept, false), DataBuffer.class);
+    }
+
+    @Override
+    public <T> Mono<T> upload(Path file, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept) {
+        Assert.isTrue(this.webClientDirectServer != null, "direct server must be enabled ");
+
+        return exchange(call(directServerName, HttpMethod.POST, path, null, fileInserter(file), fileContentType(file, contentType), accept, false), type);
+    }
+
+    @Override
+    public <T> Mono<T> uploadWithApim(Path file, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept) {
+        Assert.isTrue(this.webClientWithApim != null, "apim must be enabled ");
+
+        return exchange(call(APIM, HttpMethod.POST, path, null, fileInserter(file), fileContentType(file, contentType), accept, false), type);
+    }
+
+    @Override
+    public <T> Mono<T> postDataBuffers(Publisher<DataBuffer> body, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept) {
+        Assert.isTrue(this.webClientDirectServer != null, "direct server must be enabled ");
+
+        return exchange(call(directServerName, HttpMethod.POST, path, null, BodyInserters.fromDataBuffers(body),
+                contentType == null ? MediaType.APPLICATION_OCTET_STREAM : contentType, accept, false), type);
+    }
+
+    @Override
+    public <T> Mono<T> postMultipart(MultiValueMap<String, HttpEntity<?>> parts, Class<T> type, String path, @Nullable MediaType accept) {
+        Assert.isTrue(this.webClientDirectServer != null, "direct server must be enabled ");
+
+        return exchange(call(directServerName, HttpMethod.POST, path, null, BodyInserters.fromMultipartData(parts),
+                MediaType.MULTIPART_FORM_DATA, accept, false), type);
+    }
+
+    /**
+     * the buffers are written as they arrive and released once written, the partial file is deleted on error or cancel
+     */
+    private Mono<Path> download(WebClientCall call, Path target) {
+        final Mono<Path> deletePartial = Mono.fromCallable(() -> Files.deleteIfExists(target))
+                .subscribeOn(Schedulers.boundedElastic())
+                .thenReturn(target);
+
+        return DataBufferUtils.write(stream(call, DataBuffer.class), target,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)
+                .thenReturn(target)
+                .onErrorResume(throwable -> deletePartial.then(Mono.<Path>error(throwable)))
+                .doOnCancel(() -> deletePartial.subscribe(path -> {
+                }, throwable -> log.warn("Partial download {} not deleted {}", target, throwable.toString())));
+    }
+
+    private static BodyInserter<?, ? super ClientHttpRequest> fileInserter(Path file) {
+        return BodyInserters.fromResource(new FileSystemResource(file));
+    }
+
+    private static MediaType fileContentType(Path file, @Nullable MediaType contentType) {
+        if (contentType != null) {
+            return contentType;
         }
+        return MediaTypeFactory.getMediaType(file.getFileName().toString()).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
 
-        return this.webClientDirectServer.put()
-                .uri(uriBuilder -> uriBuilder
-                        .path(path)
-                        .build()
-                )
-                .contentType(contentType == null ? MediaType.APPLICATION_JSON : contentType)
-                .accept(accept)
-                .bodyValue(dataPayload)
-                .retrieve()
-                .bodyToMono(type)
-                .doOnError(CustomizedWebClient::logError)
-                ;
+    @Override
+    public <K, V> BatchExecutor<K, V> batchPost(Class<V> type, String path, Function<V, K> keyExtractor) {
+        Assert.isTrue(this.webClientDirectServer != null, "direct server must be enabled ");
+        final Class<V[]> arrayType = arrayType(type);
+
+        return new BatchExecutor<>(batchProperties(path),
+                keys -> exchange(call(directServerName, HttpMethod.POST, path, null, keys, null, MediaType.APPLICATION_JSON, false), arrayType)
+                        .map(Arrays::asList),
+                keyExtractor);
     }
 
     @Override
-    public <T> Mono<T> delete(Class<T> type, String path, MultiValueMap<String, String> params, MediaType accept) {
+    public <K, V> BatchExecutor<K, V> batchGet(Class<V> type, String path, String keyParam, Function<V, K> keyExtractor) {
         Assert.isTrue(this.webClientDirectServer != null, "direct server must be enabled ");
+        final Class<V[]> arrayType = arrayType(type);
+
+        return new BatchExecutor<>(batchProperties(path),
+                keys -> {
+                    MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+                    keys.forEach(key -> params.add(keyParam, String.valueOf(key)));
+                    return exchange(call(directServerName, HttpMethod.GET, path, params, null, null, MediaType.APPLICATION_JSON, false), arrayType)
+                            .map(Arrays::asList);
+                },
+                keyExtractor);
+    }
+
+    private WebClientProperties.PathProperties.BatchProperties batchProperties(String path) {
+        WebClientProperties.PathProperties pathProperties = directServerPaths.get(directServerPaths.resolve(path));
+        Assert.notNull(pathProperties, "the bulk path must be declared in the direct server paths");
+
+        return pathProperties.getBatch();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Class<V[]> arrayType(Class<V> type) {
+        return (Class<V[]>) Array.newInstance(type, 0).getClass();
+    }
+
+    private WebClientCall call(String client, HttpMethod method, String path, @Nullable MultiValueMap<String, String> params,
+                               @Nullable Object body, @Nullable MediaType contentType, @Nullable MediaType accept, boolean retry) {
+        PathKeyResolver paths = APIM.equals(client) ? apimPaths : directServerPaths;
+        String pathKey = paths.resolve(path);
+
+        return WebClientCall.builder()
+                .client(client)
+                .method(method)
+                .path(path)
+                .pathKey(pathKey)
+                .pathProperties(paths.get(pathKey))
+                .params(params)
+                .body(body)
+                .contentType(contentType)
+                .accept(accept)
+                .retry(retry)
+                .build();
+    }
+
+    /**
+     * every method of this client ends here
+     */
+    private <T> Mono<T> exchange(WebClientCall call, Class<T> type) {
+        final CodecNegotiation codecs = APIM.equals(call.getClient()) ? apimCodecs : directServerCodecs;
+        final WebClientCall negotiated = codecs.negotiate(call, type, false);
+
+        Mono<T> response = RequestCoalescer.isEnabled(negotiated)
+                ? requestCoalescer.coalesce(negotiated, type, () -> send(negotiated, type))
+                : send(negotiated, type);
+
+        if (codecs.isBinary(call, negotiated)) {
+            response = response.onErrorResume(throwable -> codecs.fallback(negotiated, throwable),
+                    throwable -> exchange(call, type));
+        }
+        return response;
+    }
+
+    private <T> Mono<T> send(WebClientCall call, Class<T> type) {
+        if (ResponseCache.isEnabled(call)) {
+            return responseCache.get(call, type, headers -> resilient(retrieve(call, headers).toEntity(type), call));
+        }
+
+        return resilient(retrieve(call, null).bodyToMono(type), call);
+    }
+
+    /**
+     * the streams are neither cached, coalesced nor hedged, and they do not hold a concurrency permit while
+     * they last. a stream is retried only while none of its elements has been received
+     */
+    private <T> Flux<T> stream(WebClientCall call, Class<T> type) {
+        final CodecNegotiation codecs = APIM.equals(call.getClient()) ? apimCodecs : directServerCodecs;
+        final WebClientCall negotiated = codecs.negotiate(call, type, true);
+
+        Flux<T> response = sendStream(negotiated, type);
+        if (codecs.isBinary(call, negotiated)) {
+            response = response.onErrorResume(throwable -> codecs.fallback(negotiated, throwable),
+                    throwable -> stream(call, type));
+        }
+        return response;
+    }
+
+    private <T> Flux<T> sendStream(WebClientCall call, Class<T> type) {
+        Flux<T> response = retrieve(call, null).bodyToFlux(type);
+
+        CircuitBreakerRegistry circuitBreakers = APIM.equals(call.getClient()) ? apimCircuitBreakers : directServerCircuitBreakers;
+        if (circuitBreakers.isEnabled()) {
+            response = circuitBreakers.get(call.getPathKey()).decorate(response);
+        }
+
+        RateLimiterRegistry rateLimiters = APIM.equals(call.getClient()) ? apimRateLimiters : directServerRateLimiters;
+        if (rateLimiters.isEnabled(call)) {
+            response = rateLimiters.limit(call, Mono.<T>empty()).thenMany(response);
+        }
+
+        final RetryBudget retryBudget = retryPolicy(call).getBudget();
+        response = response
+                .doOnComplete(retryBudget::deposit)
+                .doOnError(CustomizedWebClient::logError);
 
-        if (null == accept) {
-            accept = MediaType.ALL;
+        if (!call.isRetry()) {
+            return response;
         }
 
-        return this.webClientDirectServer.delete()
+        final Flux<T> attempt = response;
+        return Flux.defer(() -> {
+            final AtomicBoolean received = new AtomicBoolean();
+            final Retry retry = manageRetry(call);
+            return attempt
+                    .doOnNext(value -> received.set(true))
+                    .retryWhen(Retry.from(signals -> retry.generateCompanion(signals
+                            .map(Retry.RetrySignal::copy)
+                            .concatMap(signal -> received.get()
+                                    ? Mono.<Retry.RetrySignal>error(signal.failure())
+                                    : Mono.just(signal)))));
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private WebClient.ResponseSpec retrieve(WebClientCall call, @Nullable HttpHeaders headers) {
+        WebClient webClient = APIM.equals(call.getClient()) ? webClientWithApim : webClientDirectServer;
+
+        WebClient.RequestBodySpec spec = webClient.method(call.getMethod())
                 .uri(uriBuilder -> uriBuilder
-                        .path(path)
-                        .queryParams(params)
+                        .path(call.getPath())
+                        .queryParams(call.getParams())
                         .build()
                 )
-                .accept(accept)
-                .retrieve()
-                .bodyToMono(type)
+                .attribute(WebClientMetrics.PATH_KEY_ATTRIBUTE, call.getPathKey())
+                .accept(call.getFallbackAccept() == null
+                        ? new MediaType[]{call.getAccept()}
+                        : new MediaType[]{call.getAccept(), call.getFallbackAccept()});
+
+        // a body inserter streams its buffers as they are, a file possibly with zero copy
+        final boolean raw = call.getBody() instanceof BodyInserter;
+
+        Long compressionThreshold = call.getBody() == null || raw ? null : RequestCompression.threshold(
+                compression(call.getClient()),
+                call.getPathProperties() == null ? null : call.getPathProperties().getCompression());
+        if (compressionThreshold != null) {
+            spec = spec.attribute(RequestCompression.THRESHOLD_ATTRIBUTE, compressionThreshold);
+        }
+
+        if (headers != null && !headers.isEmpty()) {
+            spec = spec.headers(requestHeaders -> requestHeaders.addAll(headers));
+        }
+
+        WebClient.RequestHeadersSpec<?> request;
+        if (call.getBody() == null) {
+            request = spec;
+        } else if (raw) {
+            request = spec.contentType(call.getContentType()).body((BodyInserter<?, ? super ClientHttpRequest>) call.getBody());
+        } else {
+            request = spec.contentType(call.getContentType()).bodyValue(call.getBody());
+        }
+
+        return request.retrieve();
+    }
+
+    private WebClientProperties.CompressionProperties compression(String client) {
+        if (APIM.equals(client)) {
+            return properties.getApim() == null ? null : properties.getApim().getCompression();
+        }
+        return properties.getDirectServer() == null ? null : properties.getDirectServer().getCompression();
+    }
+
+    /**
+     * the circuit breaker sees the attempts sent to the server, the limiter waits and their rejections
+     * stay out of its window. every attempt of a hedged call goes through the limiters and the breaker
+     */
+    private <R> Mono<R> resilient(Mono<R> response, WebClientCall call) {
+        CircuitBreakerRegistry circuitBreakers = APIM.equals(call.getClient()) ? apimCircuitBreakers : directServerCircuitBreakers;
+        if (circuitBreakers.isEnabled()) {
+            response = circuitBreakers.get(call.getPathKey()).decorate(response);
+        }
+
+        AdaptiveConcurrencyLimiter concurrencyLimiter = APIM.equals(call.getClient()) ? apimConcurrencyLimiter : directServerConcurrencyLimiter;
+        if (concurrencyLimiter != null && concurrencyLimiter.isEnabled()) {
+            response = concurrencyLimiter.limit(response);
+        }
+
+        RateLimiterRegistry rateLimiters = APIM.equals(call.getClient()) ? apimRateLimiters : directServerRateLimiters;
+        if (rateLimiters.isEnabled(call)) {
+            response = rateLimiters.limit(call, response);
+        }
+
+        if (RequestHedger.isEnabled(call)) {
+            response = requestHedger.hedge(call, response);
+        }
+
+        final RetryBudget retryBudget = retryPolicy(call).getBudget();
+        response = response
+                .doOnSuccess(value -> retryBudget.deposit())
                 .doOnError(CustomizedWebClient::logError);
+
+        if (call.isRetry()) {
+            response = response.retryWhen(manageRetry(call));
+        }
+
+        // the deadline covers the retries and their backoffs
+        final CallTimeouts timeouts = APIM.equals(call.getClient()) ? apimTimeouts : directServerTimeouts;
+        final Duration deadline = timeouts.deadline(call.getPathProperties());
+        return deadline == null ? response : timeouts.withDeadline(response, deadline, call.getMethod(), call.getPathKey());
     }
 
 
@@ -0,0 +1,57 @@
+package webclient.application;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.Assert;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * the clients of the backends declared under web.client.backends, by name
+ */
+@Slf4j
+public class CustomizedWebClientRegistry {
+
+    private final Map<String, CustomizedWebClient> clients;
+    private final List<Runnable> resources;
+
+    /**
+     * @param clients   by backend name
+     * @param resources released on dispose, the pools and load balancers of the clients
+     */
+    public CustomizedWebClientRegistry(Map<String, CustomizedWebClient> clients, List<Runnable> resources) {
+        this.clients = Collections.unmodifiableMap(clients);
+        this.resources = resources;
+    }
+
+    /**
+     * @param name name of the backend
+     * @return its client
+     */
+    public CustomizedWebClient get(String name) {
+        final CustomizedWebClient client = clients.get(name);
+        Assert.notNull(client, () -> "No backend " + name + " is enabled, known backends are " + clients.keySet());
+
+        return client;
+    }
+
+    public boolean contains(String name) {
+        return clients.containsKey(name);
+    }
+
+    public Set<String> getNames() {
+        return clients.keySet();
+    }
+
+    public void dispose() {
+        resources.forEach(resource -> {
+            try {
+                resource.run();
+            } catch (RuntimeException e) {
+                log.warn("Backend resource not released", e);
+            }
+        });
+    }
+}
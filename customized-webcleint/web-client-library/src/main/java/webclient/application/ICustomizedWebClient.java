@@ -1,13 +1,21 @@
 package webclient.application;
 
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.MediaType;
 import org.springframework.lang.Nullable;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
+import webclient.batch.BatchExecutor;
 import webclient.config.WebClientProperties;
 
+import java.nio.file.Path;
+import java.util.function.Function;
+
 public interface ICustomizedWebClient {
 
     /**
@@ -192,4 +200,219 @@ public interface ICustomizedWebClient {
      */
     public <T> Mono<T> delete(Class<T> type, String path, MultiValueMap<String, String> params, @Nullable MediaType accept);
 
+    /**
+     * use this method to turn single item calls into bulk http post requests
+     * on the direct server, the keys of a batch are posted as a json array and
+     * the response array is split back to the callers with the key extractor.
+     * the batch window is configured on the path
+     *
+     * @param type
+     * @param path
+     * @param keyExtractor
+     * @return
+     */
+    public <K, V> BatchExecutor<K, V> batchPost(Class<V> type, String path, Function<V, K> keyExtractor);
+
+    /**
+     * use this method to turn single item calls into bulk http get requests
+     * on the direct server, the keys of a batch are sent as repeated query params
+     *
+     * @param type
+     * @param path
+     * @param keyParam
+     * @param keyExtractor
+     * @return
+     */
+    public <K, V> BatchExecutor<K, V> batchGet(Class<V> type, String path, String keyParam, Function<V, K> keyExtractor);
+
+    /**
+     * use this method to stream the elements of a http get response
+     * on the direct server, a json array, a ndjson body (application/x-ndjson)
+     * or server sent events (text/event-stream) are decoded one element at a time
+     * with backpressure, the response is never buffered as a whole
+     *
+     * @param type
+     * @param path
+     * @param params
+     * @param accept
+     * @return
+     */
+    public <T> Flux<T> getFlux(Class<T> type, String path, MultiValueMap<String, String> params, @Nullable MediaType accept);
+
+    /**
+     * use this method to stream the elements of a http get response
+     * if you configure the required parameters,
+     * the proxy and/or basic oauth and/or retry will be used.
+     * the call is retried only while no element has been received
+     *
+     * @param type
+     * @param path
+     * @param params
+     * @param accept
+     * @return
+     */
+    public <T> Flux<T> getFluxAndRetry(Class<T> type, String path, MultiValueMap<String, String> params, @Nullable MediaType accept);
+
+    /**
+     * use this method to stream the elements of a http get response
+     * if you configure the required parameters,
+     * the proxy and/or basic oauth and apim and retry will be used.
+     * the call is retried only while no element has been received
+     *
+     * @param type
+     * @param path
+     * @param params
+     * @param accept
+     * @return
+     */
+    public <T> Flux<T> getFluxWithApimAndRetry(Class<T> type, String path, MultiValueMap<String, String> params, @Nullable MediaType accept);
+
+    /**
+     * use this method to stream the elements of a http post response
+     * if you configure the required parameters,
+     * the proxy and/or basic oauth will be used
+     *
+     * @param dataPayload
+     * @param type
+     * @param path
+     * @param contentType
+     * @param accept
+     * @return
+     */
+    public <T, V> Flux<T> postFlux(V dataPayload, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept);
+
+    /**
+     * use this method to stream the elements of a http post response
+     * if you configure the required parameters,
+     * the proxy and/or basic oauth and/or retry will be used
+     *
+     * @param dataPayload
+     * @param type
+     * @param path
+     * @param contentType
+     * @param accept
+     * @return
+     */
+    public <T, V> Flux<T> postFluxAndRetry(V dataPayload, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept);
+
+    /**
+     * use this method to stream the elements of a http post response
+     * if you configure the required parameters,
+     * the proxy and/or basic oauth and apim will be used
+     *
+     * @param dataPayload
+     * @param type
+     * @param path
+     * @param contentType
+     * @param accept
+     * @return
+     */
+    public <T, V> Flux<T> postFluxWithApim(V dataPayload, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept);
+
+    /**
+     * use this method to stream the elements of a http post response
+     * if you configure the required parameters,
+     * the proxy and/or basic oauth and apim and retry will be used
+     *
+     * @param dataPayload
+     * @param type
+     * @param path
+     * @param contentType
+     * @param accept
+     * @return
+     */
+    public <T, V> Flux<T> postFluxWithApimAndRetry(V dataPayload, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept);
+
+    /**
+     * use this method to write the body of a http get request to a file
+     * on the direct server, the body is never decoded nor held in memory:
+     * every buffer is written with an AsynchronousFileChannel and released.
+     * the file is created or truncated, and deleted when the download fails or is cancelled
+     *
+     * @param path
+     * @param params
+     * @param target
+     * @return the target once the whole body is written
+     */
+    public Mono<Path> download(String path, MultiValueMap<String, String> params, Path target);
+
+    /**
+     * use this method to write the body of a http get request to a file
+     * if you configure the required parameters,
+     * the proxy and/or basic oauth and apim will be used
+     *
+     * @param path
+     * @param params
+     * @param target
+     * @return the target once the whole body is written
+     */
+    public Mono<Path> downloadWithApim(String path, MultiValueMap<String, String> params, Path target);
+
+    /**
+     * use this method to relay the body of a http get request without decoding it
+     * on the direct server. the caller owns the buffers it receives and must release them,
+     * the buffers not yet received are released on cancel and error
+     *
+     * @param path
+     * @param params
+     * @param accept
+     * @return
+     */
+    public Flux<DataBuffer> getDataBuffers(String path, MultiValueMap<String, String> params, @Nullable MediaType accept);
+
+    /**
+     * use this method to send a file as the body of a http post request
+     * on the direct server, with zero copy when the connection allows it.
+     * the content type is guessed from the file name when not given
+     *
+     * @param file
+     * @param type
+     * @param path
+     * @param contentType
+     * @param accept
+     * @return
+     */
+    public <T> Mono<T> upload(Path file, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept);
+
+    /**
+     * use this method to send a file as the body of a http post request
+     * if you configure the required parameters,
+     * the proxy and/or basic oauth and apim will be used
+     *
+     * @param file
+     * @param type
+     * @param path
+     * @param contentType
+     * @param accept
+     * @return
+     */
+    public <T> Mono<T> uploadWithApim(Path file, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept);
+
+    /**
+     * use this method to relay buffers as the body of a http post request
+     * on the direct server, without encoding them. the buffers are released once written,
+     * the publisher is subscribed once, so the call is never retried
+     *
+     * @param body
+     * @param type
+     * @param path
+     * @param contentType application/octet-stream when null
+     * @param accept
+     * @return
+     */
+    public <T> Mono<T> postDataBuffers(Publisher<DataBuffer> body, Class<T> type, String path, @Nullable MediaType contentType, @Nullable MediaType accept);
+
+    /**
+     * use this method to make a multipart/form-data http post request
+     * on the direct server, the parts are built with a MultipartBodyBuilder and
+     * may hold files or publishers of buffers, streamed as they are
+     *
+     * @param parts
+     * @param type
+     * @param path
+     * @param accept
+     * @return
+     */
+    public <T> Mono<T> postMultipart(MultiValueMap<String, HttpEntity<?>> parts, Class<T> type, String path, @Nullable MediaType accept);
+
 }
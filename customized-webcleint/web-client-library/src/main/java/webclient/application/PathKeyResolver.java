@@ -0,0 +1,43 @@
+package webclient.application;
+
+import webclient.config.WebClientProperties;
+import webclient.metrics.WebClientMetrics;
+
+import java.util.Map;
+
+/**
+ * finds the key of the {@link WebClientProperties.PathProperties} a called path belongs to,
+ * by exact uri first then by the longest declared uri the path starts with
+ */
+public class PathKeyResolver {
+
+    private final Map<String, WebClientProperties.PathProperties> paths;
+
+    public PathKeyResolver(Map<String, WebClientProperties.PathProperties> paths) {
+        this.paths = paths == null ? Map.of() : paths;
+    }
+
+    public String resolve(String path) {
+        String pathKey = WebClientMetrics.NONE;
+        int matchLength = -1;
+
+        for (Map.Entry<String, WebClientProperties.PathProperties> entry : paths.entrySet()) {
+            String uri = entry.getValue().getUri();
+            if (uri == null || path == null || !path.startsWith(uri)) {
+                continue;
+            }
+            if (uri.length() == path.length()) {
+                return entry.getKey();
+            }
+            if (uri.length() > matchLength) {
+                pathKey = entry.getKey();
+                matchLength = uri.length();
+            }
+        }
+        return pathKey;
+    }
+
+    public WebClientProperties.PathProperties get(String pathKey) {
+        return paths.get(pathKey);
+    }
+}
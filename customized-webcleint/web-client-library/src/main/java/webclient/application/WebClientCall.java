@@ -0,0 +1,58 @@
+package webclient.application;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.util.MultiValueMap;
+import webclient.config.WebClientProperties;
+
+/**
+ * a single call made through {@link CustomizedWebClient}
+ */
+@Getter
+@Builder(toBuilder = true)
+@ToString(exclude = "body")
+public class WebClientCall {
+
+    /**
+     * apim or direct
+     */
+    private final String client;
+
+    private final HttpMethod method;
+
+    private final String path;
+
+    /**
+     * key of the path in the properties of the client
+     */
+    private final String pathKey;
+
+    /**
+     * properties of the path, null when the path is not declared
+     */
+    private final WebClientProperties.PathProperties pathProperties;
+
+    private final MultiValueMap<String, String> params;
+
+    private final Object body;
+
+    /**
+     * null until negotiated by {@link webclient.codec.CodecNegotiation}
+     */
+    private final MediaType contentType;
+
+    /**
+     * null until negotiated by {@link webclient.codec.CodecNegotiation}
+     */
+    private final MediaType accept;
+
+    /**
+     * accepted with a lower quality than accept, null when accept is the only media type
+     */
+    private final MediaType fallbackAccept;
+
+    private final boolean retry;
+}
@@ -0,0 +1,152 @@
+package webclient.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import webclient.config.WebClientProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * collects single item calls for a short window, or until the batch is full,
+ * then sends one bulk call and gives every caller the element matching its key.
+ * callers whose key is missing from the bulk response get an empty Mono
+ *
+ * @param <K> key of an item
+ * @param <V> item returned by the bulk call
+ */
+@Slf4j
+public class BatchExecutor<K, V> {
+
+    private final int maxSize;
+    private final Duration maxWait;
+    private final Function<List<K>, Mono<List<V>>> bulkCall;
+    private final Function<V, K> keyExtractor;
+    private final Scheduler scheduler;
+
+    private List<Pending<K, V>> pending = new ArrayList<>();
+    private Disposable flushTask;
+
+    /**
+     * @param batchProperties
+     * @param bulkCall        sends the distinct keys of a batch in one call
+     * @param keyExtractor    key of an element of the bulk response
+     */
+    public BatchExecutor(WebClientProperties.PathProperties.BatchProperties batchProperties,
+                         Function<List<K>, Mono<List<V>>> bulkCall,
+                         Function<V, K> keyExtractor) {
+        this(batchProperties.getMaxSize(), batchProperties.getMaxWait(), bulkCall, keyExtractor, Schedulers.parallel());
+    }
+
+    public BatchExecutor(int maxSize, Duration maxWait,
+                         Function<List<K>, Mono<List<V>>> bulkCall,
+                         Function<V, K> keyExtractor,
+                         Scheduler scheduler) {
+        this.maxSize = maxSize;
+        this.maxWait = maxWait;
+        this.bulkCall = bulkCall;
+        this.keyExtractor = keyExtractor;
+        this.scheduler = scheduler;
+    }
+
+    public Mono<V> submit(K key) {
+        return Mono.create(sink -> {
+            final Pending<K, V> item = new Pending<>(key, sink);
+            sink.onCancel(() -> remove(item));
+            add(item);
+        });
+    }
+
+    private void add(Pending<K, V> item) {
+        List<Pending<K, V>> batch = null;
+
+        synchronized (this) {
+            pending.add(item);
+            if (pending.size() >= maxSize) {
+                batch = swap();
+            } else if (pending.size() == 1) {
+                final List<Pending<K, V>> window = pending;
+                flushTask = scheduler.schedule(() -> flush(window), maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (batch != null) {
+            send(batch);
+        }
+    }
+
+    /**
+     * a cancelled caller leaves the batch while it is not sent, a batch left without callers is dropped
+     */
+    private synchronized void remove(Pending<K, V> item) {
+        if (pending.remove(item) && pending.isEmpty()) {
+            swap();
+        }
+    }
+
+    private void flush(List<Pending<K, V>> window) {
+        List<Pending<K, V>> batch;
+
+        synchronized (this) {
+            if (pending != window) {
+                // already sent because it was full
+                return;
+            }
+            batch = swap();
+        }
+
+        send(batch);
+    }
+
+    private List<Pending<K, V>> swap() {
+        List<Pending<K, V>> batch = pending;
+        pending = new ArrayList<>();
+        if (flushTask != null) {
+            flushTask.dispose();
+            flushTask = null;
+        }
+        return batch;
+    }
+
+    private void send(List<Pending<K, V>> batch) {
+        LinkedHashSet<K> keys = new LinkedHashSet<>();
+        batch.forEach(item -> keys.add(item.key));
+
+        bulkCall.apply(new ArrayList<>(keys))
+                .subscribe(values -> {
+                    Map<K, V> byKey = new HashMap<>();
+                    values.forEach(value -> byKey.put(keyExtractor.apply(value), value));
+                    batch.forEach(item -> {
+                        V value = byKey.get(item.key);
+                        if (value == null) {
+                            item.sink.success();
+                        } else {
+                            item.sink.success(value);
+                        }
+                    });
+                }, throwable -> {
+                    log.warn("Bulk call of {} keys failed {}", keys.size(), throwable.toString());
+                    batch.forEach(item -> item.sink.error(throwable));
+                }, () -> batch.forEach(item -> item.sink.success()));
+    }
+
+    private static final class Pending<K, V> {
+        private final K key;
+        private final MonoSink<V> sink;
+
+        private Pending(K key, MonoSink<V> sink) {
+            this.key = key;
+            this.sink = sink;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package webclient.cache;
+
+import lombok.Getter;
+import org.springframework.http.HttpHeaders;
+import webclient.config.WebClientProperties;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * a decoded body with its freshness and validators
+ */
+@Getter
+class CachedResponse {
+
+    private final Object body;
+    private final String etag;
+    private final String lastModified;
+    private final long expiresAt;
+    private final long staleUntil;
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+
+    private CachedResponse(Object body, String etag, String lastModified, long expiresAt, long staleUntil) {
+        this.body = body;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.expiresAt = expiresAt;
+        this.staleUntil = staleUntil;
+    }
+
+    /**
+     * @param body
+     * @param headers  headers of a 200 or of a 304
+     * @param previous the entry revalidated by a 304, its validators are kept when the 304 has none
+     * @param cacheProperties
+     * @param now      time of the response, in nanoseconds of the ticker of the cache
+     * @return null when the response must not be stored
+     */
+    static CachedResponse of(Object body, HttpHeaders headers, CachedResponse previous,
+                             WebClientProperties.PathProperties.CacheProperties cacheProperties, long now) {
+        long maxAge = cacheProperties.getDefaultTtl().getSeconds();
+        long staleWhileRevalidate = cacheProperties.getStaleWhileRevalidate().getSeconds();
+
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null) {
+            for (String directive : cacheControl.split(",")) {
+                String value = directive.trim().toLowerCase(Locale.ROOT);
+                if (value.equals("no-store")) {
+                    return null;
+                } else if (value.equals("no-cache")) {
+                    maxAge = 0;
+                } else if (value.startsWith("max-age=")) {
+                    maxAge = seconds(value.substring("max-age=".length()), maxAge);
+                } else if (value.startsWith("stale-while-revalidate=")) {
+                    staleWhileRevalidate = seconds(value.substring("stale-while-revalidate=".length()), staleWhileRevalidate);
+                }
+            }
+        }
+        String age = headers.getFirst(HttpHeaders.AGE);
+        if (age != null) {
+            maxAge = Math.max(0, maxAge - seconds(age, 0));
+        }
+
+        String etag = headers.getETag();
+        String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+        if (previous != null) {
+            etag = etag == null ? previous.etag : etag;
+            lastModified = lastModified == null ? previous.lastModified : lastModified;
+        }
+
+        if (maxAge <= 0 && staleWhileRevalidate <= 0 && etag == null && lastModified == null) {
+            return null;
+        }
+
+        long expiresAt = now + TimeUnit.SECONDS.toNanos(maxAge);
+        return new CachedResponse(body, etag, lastModified, expiresAt, expiresAt + TimeUnit.SECONDS.toNanos(staleWhileRevalidate));
+    }
+
+    boolean isFresh(long now) {
+        return now - expiresAt < 0;
+    }
+
+    boolean isStaleUsable(long now) {
+        return now - staleUntil < 0;
+    }
+
+    boolean hasValidators() {
+        return etag != null || lastModified != null;
+    }
+
+    boolean startRevalidation() {
+        return revalidating.compareAndSet(false, true);
+    }
+
+    void endRevalidation() {
+        revalidating.set(false);
+    }
+
+    private static long seconds(String value, long defaultValue) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package webclient.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import webclient.application.WebClientCall;
+import webclient.config.WebClientProperties;
+import webclient.metrics.WebClientMetrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * in memory cache of GET responses, one size bounded caffeine cache (W-TinyLFU eviction) per client and path.
+ * honors max-age, no-cache, no-store and stale-while-revalidate, revalidates stale entries
+ * with If-None-Match / If-Modified-Since and treats a 304 as a hit.
+ * an entry without validators is dropped once its stale window is over, as it can only be fetched again,
+ * an entry with validators is kept for its revalidation until evicted by size.
+ * the decoded bodies are shared: every caller of a cached path gets the same instance, which must not be mutated
+ */
+@Slf4j
+public class ResponseCache {
+
+    public static final String CACHE = "webclient.client.cache";
+    public static final String ENTRIES = "webclient.client.cache.entries";
+
+    private final WebClientMetrics metrics;
+    private final Ticker ticker;
+    private final Map<String, Cache<String, CachedResponse>> caches = new ConcurrentHashMap<>();
+
+    public ResponseCache(WebClientMetrics metrics) {
+        this(metrics, Ticker.systemTicker());
+    }
+
+    /**
+     * @param metrics
+     * @param ticker  time source of the freshness of the entries
+     */
+    public ResponseCache(WebClientMetrics metrics, Ticker ticker) {
+        this.metrics = metrics;
+        this.ticker = ticker;
+    }
+
+    public static boolean isEnabled(WebClientCall call) {
+        return call.getMethod() == HttpMethod.GET
+                && call.getPathProperties() != null
+                && call.getPathProperties().getCache() != null
+                && call.getPathProperties().getCache().getEnabled();
+    }
+
+    /**
+     * @param call
+     * @param type
+     * @param fetch sends the request with the given conditional headers
+     * @param <T>
+     * @return
+     */
+    public <T> Mono<T> get(WebClientCall call, Class<T> type, Function<HttpHeaders, Mono<ResponseEntity<T>>> fetch) {
+        final WebClientProperties.PathProperties.CacheProperties cacheProperties = call.getPathProperties().getCache();
+        final Cache<String, CachedResponse> cache = caches.computeIfAbsent(call.getClient() + ':' + call.getPathKey(),
+                name -> create(call, cacheProperties));
+        final String key = key(call, type);
+
+        final CachedResponse cached = cache.getIfPresent(key);
+        final long now = ticker.read();
+
+        if (cached == null) {
+            count(call, "miss");
+            return fetch.apply(new HttpHeaders())
+                    .flatMap(entity -> store(cache, key, null, entity, cacheProperties, type));
+        }
+        if (cached.isFresh(now)) {
+            count(call, "hit");
+            return Mono.justOrEmpty(type.cast(cached.getBody()));
+        }
+        if (cached.isStaleUsable(now)) {
+            count(call, "stale");
+            if (cached.startRevalidation()) {
+                revalidate(call, cache, key, cached, fetch, cacheProperties, type)
+                        .doFinally(signal -> cached.endRevalidation())
+                        .subscribe(body -> {
+                        }, throwable -> log.warn("Revalidation of {} failed {}", call.getPath(), throwable.toString()));
+            }
+            return Mono.justOrEmpty(type.cast(cached.getBody()));
+        }
+        if (!cached.hasValidators()) {
+            count(call, "miss");
+            return fetch.apply(new HttpHeaders())
+                    .flatMap(entity -> store(cache, key, null, entity, cacheProperties, type));
+        }
+        return revalidate(call, cache, key, cached, fetch, cacheProperties, type);
+    }
+
+    private <T> Mono<T> revalidate(WebClientCall call, Cache<String, CachedResponse> cache, String key, CachedResponse cached,
+                                   Function<HttpHeaders, Mono<ResponseEntity<T>>> fetch,
+                                   WebClientProperties.PathProperties.CacheProperties cacheProperties, Class<T> type) {
+        HttpHeaders headers = new HttpHeaders();
+        if (cached.getEtag() != null) {
+            headers.setIfNoneMatch(cached.getEtag());
+        }
+        if (cached.getLastModified() != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+        }
+
+        return fetch.apply(headers)
+                .flatMap(entity -> {
+                    count(call, entity.getStatusCode() == HttpStatus.NOT_MODIFIED ? "revalidated" : "miss");
+                    return store(cache, key, cached, entity, cacheProperties, type);
+                });
+    }
+
+    private <T> Mono<T> store(Cache<String, CachedResponse> cache, String key, CachedResponse cached, ResponseEntity<T> entity,
+                              WebClientProperties.PathProperties.CacheProperties cacheProperties, Class<T> type) {
+        if (entity.getStatusCode() == HttpStatus.NOT_MODIFIED && cached != null) {
+            CachedResponse refreshed = CachedResponse.of(cached.getBody(), entity.getHeaders(), cached, cacheProperties, ticker.read());
+            if (refreshed != null) {
+                cache.put(key, refreshed);
+            } else {
+                cache.invalidate(key);
+            }
+            return Mono.justOrEmpty(type.cast(cached.getBody()));
+        }
+
+        if (entity.getStatusCode() == HttpStatus.OK) {
+            CachedResponse response = CachedResponse.of(entity.getBody(), entity.getHeaders(), null, cacheProperties, ticker.read());
+            if (response != null) {
+                cache.put(key, response);
+            } else {
+                cache.invalidate(key);
+            }
+        }
+        return Mono.justOrEmpty(entity.getBody());
+    }
+
+    private Cache<String, CachedResponse> create(WebClientCall call, WebClientProperties.PathProperties.CacheProperties cacheProperties) {
+        final Cache<String, CachedResponse> cache = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getMaximumSize())
+                .expireAfter(new StaleExpiry())
+                .ticker(ticker)
+                .build();
+        Gauge.builder(ENTRIES, cache, entries -> {
+                    entries.cleanUp();
+                    return entries.estimatedSize();
+                })
+                .tags(WebClientMetrics.tags(call.getClient(), call.getMethod(), call.getPathKey()))
+                .register(metrics.getRegistry());
+        return cache;
+    }
+
+    private void count(WebClientCall call, String result) {
+        Counter.builder(CACHE)
+                .tags(WebClientMetrics.tags(call.getClient(), call.getMethod(), call.getPathKey()).and("result", result))
+                .register(metrics.getRegistry())
+                .increment();
+    }
+
+    private static String key(WebClientCall call, Class<?> type) {
+        return call.getPath() + '?' + call.getParams() + '|' + call.getAccept() + '|' + type.getName();
+    }
+
+    /**
+     * the entry lives until the end of its stale window, or as long as the size allows when it has validators.
+     * a read does not extend it
+     */
+    private class StaleExpiry implements Expiry<String, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+            return value.hasValidators() ? Long.MAX_VALUE : Math.max(0, value.getStaleUntil() - ticker.read());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
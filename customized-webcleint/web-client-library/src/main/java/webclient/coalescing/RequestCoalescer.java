@@ -0,0 +1,56 @@
+package webclient.coalescing;
+
+import org.springframework.http.HttpMethod;
+import reactor.core.publisher.Mono;
+import webclient.application.WebClientCall;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * single flight of identical GET calls: the subscribers of a call already in flight
+ * share its result instead of sending the same request again.
+ * the upstream call is cancelled only when every subscriber has cancelled,
+ * the entry is removed as soon as the call terminates so nothing is served stale
+ */
+public class RequestCoalescer {
+
+    private final ConcurrentMap<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+
+    public static boolean isEnabled(WebClientCall call) {
+        return call.getMethod() == HttpMethod.GET
+                && call.getPathProperties() != null
+                && call.getPathProperties().getCoalesce();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> coalesce(WebClientCall call, Class<T> type, Supplier<Mono<T>> request) {
+        final String key = call.getClient() + '|' + call.getPath() + '?' + call.getParams() + '|' + call.getAccept() + '|' + type.getName();
+
+        return Mono.defer(() -> {
+            Mono<?> shared = inFlight.get(key);
+            if (shared == null) {
+                Mono<?>[] created = new Mono<?>[1];
+                created[0] = request.get()
+                        .doFinally(signal -> inFlight.remove(key, created[0]))
+                        .flux()
+                        .publish()
+                        .refCount(1)
+                        .singleOrEmpty();
+                shared = inFlight.putIfAbsent(key, created[0]);
+                if (shared == null) {
+                    shared = created[0];
+                }
+            }
+            return (Mono<T>) shared;
+        });
+    }
+
+    /**
+     * @return number of distinct calls in flight
+     */
+    public int size() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,140 @@
+package webclient.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ClientCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.codec.protobuf.ProtobufDecoder;
+import org.springframework.http.codec.protobuf.ProtobufHttpMessageWriter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import webclient.config.WebClientProperties.CodecProperties.Format;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * the binary codecs a web client may register besides json.
+ * a format is available only when its library is on the classpath: jackson-dataformat-cbor,
+ * jackson-dataformat-smile or protobuf-java, all optional dependencies of this library
+ */
+@Slf4j
+public class BinaryCodecs {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    private static final ClassLoader CLASS_LOADER = BinaryCodecs.class.getClassLoader();
+
+    private static final boolean CBOR_PRESENT = ClassUtils.isPresent("com.fasterxml.jackson.dataformat.cbor.CBORFactory", CLASS_LOADER);
+
+    private static final boolean SMILE_PRESENT = ClassUtils.isPresent("com.fasterxml.jackson.dataformat.smile.SmileFactory", CLASS_LOADER);
+
+    private static final boolean PROTOBUF_PRESENT = ClassUtils.isPresent("com.google.protobuf.Message", CLASS_LOADER);
+
+    private BinaryCodecs() {
+    }
+
+    /**
+     * registers the codecs of the formats on a web client, the formats whose library is missing are skipped
+     * <p>
+     * the jackson codecs are built with their media type, without it they would declare the json ones
+     * and read json responses with a binary parser. they come after the default json codecs
+     *
+     * @param configurer
+     * @param formats
+     */
+    public static void register(ClientCodecConfigurer configurer, List<Format> formats) {
+        for (Format format : formats) {
+            if (!isAvailable(format)) {
+                log.warn("Codec {} is not on the classpath, the calls are sent as json", format);
+                continue;
+            }
+            switch (format) {
+                case CBOR:
+                    ObjectMapper cbor = Jackson2ObjectMapperBuilder.cbor().build();
+                    configurer.customCodecs().register(new Jackson2CborEncoder(cbor, MediaType.APPLICATION_CBOR));
+                    configurer.customCodecs().register(new Jackson2CborDecoder(cbor, MediaType.APPLICATION_CBOR));
+                    break;
+                case SMILE:
+                    ObjectMapper smile = Jackson2ObjectMapperBuilder.smile().build();
+                    configurer.customCodecs().register(new Jackson2SmileEncoder(smile, APPLICATION_SMILE));
+                    configurer.customCodecs().register(new Jackson2SmileDecoder(smile, APPLICATION_SMILE));
+                    break;
+                case PROTOBUF:
+                    configurer.customCodecs().register(new ProtobufHttpMessageWriter());
+                    configurer.customCodecs().register(new ProtobufDecoder());
+                    break;
+                default:
+            }
+        }
+    }
+
+    public static boolean isAvailable(Format format) {
+        switch (format) {
+            case CBOR:
+                return CBOR_PRESENT;
+            case SMILE:
+                return SMILE_PRESENT;
+            case PROTOBUF:
+                return PROTOBUF_PRESENT;
+            default:
+                return true;
+        }
+    }
+
+    public static MediaType mediaType(Format format) {
+        switch (format) {
+            case CBOR:
+                return MediaType.APPLICATION_CBOR;
+            case SMILE:
+                return APPLICATION_SMILE;
+            case PROTOBUF:
+                return APPLICATION_PROTOBUF;
+            default:
+                return MediaType.APPLICATION_JSON;
+        }
+    }
+
+    /**
+     * @param format
+     * @param type      type of the body or of the response
+     * @param streaming true for a response decoded as a Flux, the cbor decoder of spring decodes single values only
+     * @return true when the format can encode or decode the type
+     */
+    public static boolean supports(Format format, @Nullable Class<?> type, boolean streaming) {
+        if (type == null || !isAvailable(format) || isRaw(type)) {
+            return false;
+        }
+        switch (format) {
+            case CBOR:
+                return !streaming;
+            case SMILE:
+                return true;
+            case PROTOBUF:
+                return com.google.protobuf.Message.class.isAssignableFrom(type);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * the bodies read or written as they are, whatever the format
+     */
+    private static boolean isRaw(Class<?> type) {
+        return CharSequence.class.isAssignableFrom(type)
+                || byte[].class == type
+                || ByteBuffer.class.isAssignableFrom(type)
+                || DataBuffer.class.isAssignableFrom(type)
+                || Resource.class.isAssignableFrom(type)
+                || Void.class == type;
+    }
+}
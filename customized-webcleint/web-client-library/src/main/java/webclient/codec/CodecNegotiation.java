@@ -0,0 +1,118 @@
+package webclient.codec;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import webclient.application.WebClientCall;
+import webclient.config.WebClientProperties;
+import webclient.config.WebClientProperties.CodecProperties.Format;
+import webclient.metrics.WebClientMetrics;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * content negotiation of a client.
+ * a call whose caller gave no content type or accept is sent in the format of its path, or in the preferred
+ * format of the client, and accepts json with a lower quality. when the server answers a binary call with a
+ * 415 or a 406 the path is marked as json only and the call is sent again as json
+ */
+@Slf4j
+public class CodecNegotiation {
+
+    public static final String FALLBACK = "webclient.client.codec.fallback";
+
+    /**
+     * accepted besides a binary format, a server without the binary codec answers in json
+     */
+    static final MediaType JSON_FALLBACK = new MediaType(MediaType.APPLICATION_JSON, Collections.singletonMap("q", "0.5"));
+
+    private final String client;
+    private final WebClientProperties.CodecProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> jsonOnly = ConcurrentHashMap.newKeySet();
+
+    public CodecNegotiation(String client, WebClientProperties.CodecProperties properties, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param call
+     * @param type      type of the response
+     * @param streaming true when the response is decoded as a Flux
+     * @return the call with its content type and accept set
+     */
+    public WebClientCall negotiate(WebClientCall call, Class<?> type, boolean streaming) {
+        final Format format = format(call);
+        final Object body = call.getBody();
+
+        MediaType contentType = call.getContentType();
+        if (contentType == null) {
+            contentType = body != null && !(body instanceof BodyInserter) && BinaryCodecs.supports(format, body.getClass(), false)
+                    ? BinaryCodecs.mediaType(format) : MediaType.APPLICATION_JSON;
+        }
+
+        MediaType accept = call.getAccept();
+        MediaType fallbackAccept = null;
+        if (accept == null) {
+            if (BinaryCodecs.supports(format, type, streaming)) {
+                accept = BinaryCodecs.mediaType(format);
+                fallbackAccept = JSON_FALLBACK;
+            } else {
+                accept = MediaType.ALL;
+            }
+        }
+
+        return call.toBuilder()
+                .contentType(contentType)
+                .accept(accept)
+                .fallbackAccept(fallbackAccept)
+                .build();
+    }
+
+    /**
+     * @param call       the call of the caller
+     * @param negotiated the call returned by {@link #negotiate(WebClientCall, Class, boolean)}
+     * @return true when the negotiated call is sent or answered in a binary format
+     */
+    public boolean isBinary(WebClientCall call, WebClientCall negotiated) {
+        return negotiated.getFallbackAccept() != null
+                || (call.getContentType() == null && !MediaType.APPLICATION_JSON.equals(negotiated.getContentType()));
+    }
+
+    /**
+     * @return true when the failure tells that the server does not support the binary format of the call,
+     * the path is then sent as json
+     */
+    public boolean fallback(WebClientCall negotiated, Throwable failure) {
+        if (!(failure instanceof WebClientResponseException.UnsupportedMediaType)
+                && !(failure instanceof WebClientResponseException.NotAcceptable)) {
+            return false;
+        }
+        final Format format = format(negotiated);
+        if (jsonOnly.add(negotiated.getPathKey())) {
+            log.warn("Codec {} is not supported by {} {}, sending json from now on", format, client, negotiated.getPathKey());
+        }
+        Counter.builder(FALLBACK)
+                .tags(WebClientMetrics.tags(client, negotiated.getMethod(), negotiated.getPathKey())
+                        .and("codec", format.name()))
+                .register(meterRegistry)
+                .increment();
+        return true;
+    }
+
+    private Format format(WebClientCall call) {
+        if (properties == null || jsonOnly.contains(call.getPathKey())) {
+            return Format.JSON;
+        }
+        Format format = call.getPathProperties() != null && call.getPathProperties().getFormat() != null
+                ? call.getPathProperties().getFormat() : properties.getPreferred();
+        return format == Format.JSON || properties.getFormats().contains(format) ? format : Format.JSON;
+    }
+}
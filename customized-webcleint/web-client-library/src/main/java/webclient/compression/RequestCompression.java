@@ -0,0 +1,124 @@
+package webclient.compression;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import webclient.config.WebClientProperties;
+import webclient.metrics.WebClientMetrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * gzip of the request bodies.
+ * the body is compressed when the request carries the threshold attribute and is at least that large,
+ * the sizes before and after are recorded with the stage tag raw and encoded
+ */
+public class RequestCompression {
+
+    /**
+     * request attribute holding the minimum size in bytes of a body to compress
+     */
+    public static final String THRESHOLD_ATTRIBUTE = RequestCompression.class.getName() + ".threshold";
+
+    public static final String SIZE = "webclient.client.request.compression";
+
+    private RequestCompression() {
+    }
+
+    /**
+     * @return the threshold of a call, null when its body must not be compressed
+     */
+    @Nullable
+    public static Long threshold(@Nullable WebClientProperties.CompressionProperties client,
+                                 @Nullable WebClientProperties.PathProperties.CompressionProperties path) {
+        Boolean enabled = path != null && path.getRequestEnabled() != null ? path.getRequestEnabled()
+                : client != null && client.getRequestEnabled();
+        if (!enabled) {
+            return null;
+        }
+        if (path != null && path.getRequestThreshold() != null) {
+            return path.getRequestThreshold().toBytes();
+        }
+        return client != null ? client.getRequestThreshold().toBytes() : 0L;
+    }
+
+    /**
+     * to register after the metrics filter, so that its request size stays the uncompressed one
+     *
+     * @param client
+     * @param registry
+     * @return
+     */
+    public static ExchangeFilterFunction filter(String client, MeterRegistry registry) {
+        return (request, next) -> {
+            final Optional<Object> threshold = request.attribute(THRESHOLD_ATTRIBUTE);
+            if (!threshold.isPresent() || request.headers().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+                return next.exchange(request);
+            }
+
+            final long minSize = (Long) threshold.get();
+            final Tags tags = WebClientMetrics.tags(client, request.method(), WebClientMetrics.pathKey(request));
+
+            return next.exchange(ClientRequest.from(request)
+                    .body((outputMessage, context) -> request.body().insert(new ClientHttpRequestDecorator(outputMessage) {
+                        @Override
+                        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                            return DataBufferUtils.join(body)
+                                    .switchIfEmpty(Mono.fromSupplier(() -> bufferFactory().allocateBuffer(0)))
+                                    .flatMap(buffer -> {
+                                        final int size = buffer.readableByteCount();
+                                        if (size < minSize) {
+                                            return super.writeWith(Mono.just(buffer));
+                                        }
+
+                                        final DataBuffer compressed = gzip(buffer, bufferFactory());
+                                        getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+                                        getHeaders().setContentLength(compressed.readableByteCount());
+                                        record(registry, tags, "raw", size);
+                                        record(registry, tags, "encoded", compressed.readableByteCount());
+                                        return super.writeWith(Mono.just(compressed));
+                                    });
+                        }
+                    }, context))
+                    .build());
+        };
+    }
+
+    /**
+     * compresses and releases the buffer
+     */
+    static DataBuffer gzip(DataBuffer buffer, DataBufferFactory bufferFactory) {
+        final DataBuffer compressed = bufferFactory.allocateBuffer(Math.max(64, buffer.readableByteCount() / 4));
+        try (InputStream in = buffer.asInputStream(true);
+             GZIPOutputStream out = new GZIPOutputStream(compressed.asOutputStream())) {
+            StreamUtils.copy(in, out);
+        } catch (IOException e) {
+            DataBufferUtils.release(compressed);
+            throw new UncheckedIOException(e);
+        }
+        return compressed;
+    }
+
+    private static void record(MeterRegistry registry, Tags tags, String stage, long size) {
+        DistributionSummary.builder(SIZE)
+                .baseUnit("bytes")
+                .tags(tags.and("stage", stage))
+                .register(registry)
+                .record(size);
+    }
+}
@@ -0,0 +1,95 @@
+package webclient.compression;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import reactor.netty.Connection;
+import reactor.netty.NettyPipeline;
+
+import java.util.Locale;
+
+/**
+ * sizes of the response bodies on the wire and once decompressed, tagged by the Content-Encoding of the server.
+ * two handlers surround the decompressor of reactor netty, they stay on the connection while it is pooled
+ */
+public class ResponseCompressionMetrics {
+
+    public static final String SIZE = "webclient.client.response.compression";
+
+    private static final String ENCODED_HANDLER = "webclient.compression.encoded";
+    private static final String RAW_HANDLER = "webclient.compression.raw";
+
+    private final String client;
+    private final MeterRegistry registry;
+
+    private String encoding = "identity";
+    private long encoded;
+    private long raw;
+
+    private ResponseCompressionMetrics(String client, MeterRegistry registry) {
+        this.client = client;
+        this.registry = registry;
+    }
+
+    /**
+     * does nothing when the connection does not decompress, HTTP/2 streams included
+     *
+     * @param connection
+     * @param client
+     * @param registry
+     */
+    public static void install(Connection connection, String client, MeterRegistry registry) {
+        ChannelPipeline pipeline = connection.channel().pipeline();
+        if (pipeline.get(NettyPipeline.HttpDecompressor) == null || pipeline.get(RAW_HANDLER) != null) {
+            return;
+        }
+
+        // the responses of an HTTP/1.1 connection come one after the other, the counts are per response
+        ResponseCompressionMetrics metrics = new ResponseCompressionMetrics(client, registry);
+        pipeline.addBefore(NettyPipeline.HttpDecompressor, ENCODED_HANDLER, new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                if (msg instanceof HttpResponse) {
+                    String contentEncoding = ((HttpResponse) msg).headers().get(HttpHeaderNames.CONTENT_ENCODING);
+                    metrics.encoding = contentEncoding == null ? "identity" : contentEncoding.trim().toLowerCase(Locale.ROOT);
+                    metrics.encoded = 0;
+                    metrics.raw = 0;
+                }
+                if (msg instanceof HttpContent) {
+                    metrics.encoded += ((HttpContent) msg).content().readableBytes();
+                }
+                ctx.fireChannelRead(msg);
+            }
+        });
+        pipeline.addAfter(NettyPipeline.HttpDecompressor, RAW_HANDLER, new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                if (msg instanceof HttpContent) {
+                    metrics.raw += ((HttpContent) msg).content().readableBytes();
+                    if (msg instanceof LastHttpContent) {
+                        metrics.record();
+                    }
+                }
+                ctx.fireChannelRead(msg);
+            }
+        });
+    }
+
+    private void record() {
+        size("encoded").record(encoded);
+        size("raw").record(raw);
+    }
+
+    private DistributionSummary size(String stage) {
+        return DistributionSummary.builder(SIZE)
+                .baseUnit("bytes")
+                .tags("client", client, "encoding", encoding, "stage", stage)
+                .register(registry);
+    }
+}
@@ -0,0 +1,45 @@
+package webclient.config;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * decides if an ordinary exchange is logged, first with a probability then
+ * with a per second budget. lock free, the budget is reset by the first
+ * caller of every new second
+ */
+class ExchangeLogSampler {
+
+    private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double sampleRate;
+    private final int maxPerSecond;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicLong windowCount = new AtomicLong();
+
+    ExchangeLogSampler(double sampleRate, int maxPerSecond) {
+        this.sampleRate = sampleRate;
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    boolean sample() {
+        if (sampleRate <= 0.0) {
+            return false;
+        }
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return false;
+        }
+        if (maxPerSecond <= 0) {
+            return true;
+        }
+
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= ONE_SECOND && windowStart.compareAndSet(start, now)) {
+            windowCount.set(0);
+        }
+        return windowCount.incrementAndGet() <= maxPerSecond;
+    }
+}
@@ -1,8 +1,11 @@
 package webclient.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.security.oauth2.client.OAuth2ClientProperties;
@@ -11,19 +14,38 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
-import org.springframework.security.oauth2.client.AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager;
+import org.springframework.http.server.reactive.HttpHandler;
 import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientService;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.client.registration.InMemoryReactiveClientRegistrationRepository;
 import org.springframework.security.oauth2.client.web.reactive.function.client.ServerOAuth2AuthorizedClientExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunctions;
+import org.springframework.web.reactive.function.client.ExchangeFunctions;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
 import reactor.netty.transport.ProxyProvider;
 import webclient.application.CustomizedWebClient;
+import webclient.application.CustomizedWebClientRegistry;
+import webclient.codec.BinaryCodecs;
+import webclient.compression.RequestCompression;
+import webclient.compression.ResponseCompressionMetrics;
+import webclient.loadbalancer.LoadBalancer;
+import webclient.local.LocalClientHttpConnector;
+import webclient.local.LocalExchangeFunction;
+import webclient.metrics.WebClientMetrics;
+import webclient.oauth2.ApimTokenManager;
+import webclient.timeout.CallTimeouts;
+import webclient.tls.ClientTls;
+import webclient.transport.ClientTransports;
+import webclient.warmup.WebClientWarmUp;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
@@ -34,45 +56,228 @@ public class WebClientConfig {
     @Autowired
     private WebClientProperties properties;
 
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Autowired
+    private ObjectProvider<HttpHandler> httpHandlerProvider;
+
     @Bean(name = "webClientWithApim")
     @ConditionalOnExpression("${web.client.apim.enabled:false}")
     WebClient createWebClientWithApim(OAuth2ClientProperties oAuth2ClientProperties, ReactiveOAuth2AuthorizedClientService authorizedClientService) {
         WebClientProperties.ApimProperties apimProperties = properties.getApim();
 
-
-        List<ClientRegistration> clientRegistrations = new ArrayList<>(OAuth2ClientPropertiesRegistrationAdapter.getClientRegistrations(oAuth2ClientProperties).values());
-
-        InMemoryReactiveClientRegistrationRepository oAuth2clientRegistrationRepository = new InMemoryReactiveClientRegistrationRepository(clientRegistrations);
-
         ServerOAuth2AuthorizedClientExchangeFilterFunction oauth = new ServerOAuth2AuthorizedClientExchangeFilterFunction(
-                new AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager(oAuth2clientRegistrationRepository, authorizedClientService)
+                createApimTokenManager(oAuth2ClientProperties, authorizedClientService)
         );
 
 
         oauth.setDefaultClientRegistrationId("apim");
 
-        return WebClient.builder()
+        HttpClient httpClient = configureProtocol(HttpClient.create(createApimConnectionPool().getConnectionProvider()), apimProperties.getProtocol())
+                .wiretap(apimProperties.getLogging().getWiretap());
+        httpClient = createClientTransports().configure(httpClient, CustomizedWebClient.APIM, apimProperties.getTransport());
+        httpClient = ClientTls.configure(httpClient, CustomizedWebClient.APIM, apimProperties.getTls(), apimProperties.getProtocol(), meterRegistry());
+        httpClient = configureCompression(httpClient, apimProperties.getCompression(), CustomizedWebClient.APIM);
+
+        WebClient.Builder builder = WebClient.builder()
                 .baseUrl(apimProperties.getUrl())
-                .defaultHeader("APIM-O2-EndPoint", apimProperties.getHeaderMultiBackend())
+                .defaultHeader("APIM-O2-EndPoint", apimProperties.getHeaderMultiBackend());
+        configureTransport(builder, httpClient, apimProperties.getCodec(), apimProperties.getPath());
+
+        return builder
                 .filter(oauth)
-                .filter(WebClientFilters.logResposneStatus())
-                .filter(WebClientFilters.logRequest())
+                .filter(WebClientFilters.logExchange(apimProperties.getLogging()))
+                .filter(new WebClientMetrics(meterRegistry()).filter(CustomizedWebClient.APIM))
+                .filter(RequestCompression.filter(CustomizedWebClient.APIM, meterRegistry()))
+                .filter(new CallTimeouts(CustomizedWebClient.APIM, apimProperties.getCallTimeout(), apimProperties.getPath(), meterRegistry()).filter())
                 .build();
     }
 
+    @Bean(name = "webClientWithApimTokenManager", destroyMethod = "dispose")
+    @ConditionalOnExpression("${web.client.apim.enabled:false}")
+    public ApimTokenManager createApimTokenManager(OAuth2ClientProperties oAuth2ClientProperties, ReactiveOAuth2AuthorizedClientService authorizedClientService) {
+        List<ClientRegistration> clientRegistrations = new ArrayList<>(OAuth2ClientPropertiesRegistrationAdapter.getClientRegistrations(oAuth2ClientProperties).values());
+
+        InMemoryReactiveClientRegistrationRepository oAuth2clientRegistrationRepository = new InMemoryReactiveClientRegistrationRepository(clientRegistrations);
+
+        return ApimTokenManager.create(oAuth2clientRegistrationRepository, authorizedClientService, properties.getApim().getToken(), meterRegistry());
+    }
+
+    @Bean(name = "webClientTransports", destroyMethod = "dispose")
+    public ClientTransports createClientTransports() {
+        return new ClientTransports(meterRegistry());
+    }
+
+    @Bean(name = "webClientWithApimConnectionPool", destroyMethod = "dispose")
+    @ConditionalOnExpression("${web.client.apim.enabled:false}")
+    public WebClientConnectionPool createApimConnectionPool() {
+        return new WebClientConnectionPool("webClientWithApim", properties.getApim().getPool(), properties.getApim().getProtocol());
+    }
+
+    @Bean(name = "webClientWithDirectServerConnectionPool", destroyMethod = "dispose")
+    @ConditionalOnExpression("${web.client.direct-server.enabled:false}")
+    public WebClientConnectionPool createDirectServerConnectionPool() {
+        return new WebClientConnectionPool("webClientWithDirectServer", properties.getDirectServer().getPool(), properties.getDirectServer().getProtocol());
+    }
+
+    /**
+     * shared by the calls and the health checks of the load balancer
+     */
+    @Bean(name = "webClientWithDirectServerHttpClient")
+    @ConditionalOnExpression("${web.client.direct-server.enabled:false}")
+    public HttpClient createWebClientWithDirectServerHttpClient() {
+        return createDirectServerHttpClient(CustomizedWebClient.DIRECT_SERVER, properties.getDirectServer(), createDirectServerConnectionPool());
+    }
+
+    @Bean(name = "webClientWithDirectServerLoadBalancer", destroyMethod = "dispose")
+    @ConditionalOnExpression("${web.client.direct-server.enabled:false}")
+    public LoadBalancer createDirectServerLoadBalancer() {
+        return createLoadBalancer(CustomizedWebClient.DIRECT_SERVER, properties.getDirectServer(), createWebClientWithDirectServerHttpClient());
+    }
+
     @Bean(name = "webClientWithDirectServer")
     @ConditionalOnExpression("${web.client.direct-server.enabled:false}")
     public WebClient createWebClientWithDirectServer() {
+        return createDirectServerWebClient(CustomizedWebClient.DIRECT_SERVER, properties.getDirectServer(),
+                createWebClientWithDirectServerHttpClient(), createDirectServerLoadBalancer());
+    }
+
+    /**
+     * the enabled backends, each one with its own pool and load balancer. the event loops are shared as set by their transport
+     */
+    @Bean(name = "webClientBackends", destroyMethod = "dispose")
+    public CustomizedWebClientRegistry createWebClientBackends() {
+        final Map<String, CustomizedWebClient> clients = new LinkedHashMap<>();
+        final List<Runnable> resources = new ArrayList<>();
+
+        properties.getBackends().forEach((name, backendProperties) -> {
+            if (!backendProperties.getEnabled()) {
+                return;
+            }
+
+            final WebClientConnectionPool pool = new WebClientConnectionPool("webClientWithBackend-" + name,
+                    backendProperties.getPool(), backendProperties.getProtocol());
+            final HttpClient httpClient = createDirectServerHttpClient(name, backendProperties, pool);
+            final LoadBalancer loadBalancer = createLoadBalancer(name, backendProperties, httpClient);
+            resources.add(loadBalancer::dispose);
+            resources.add(pool::dispose);
+
+            clients.put(name, new CustomizedWebClient(
+                    name,
+                    null,
+                    createDirectServerWebClient(name, backendProperties, httpClient, loadBalancer),
+                    new WebClientProperties(null, backendProperties, properties.getRetry(), null),
+                    meterRegistry()
+            ));
+            log.info("Backend {} enabled on {}", name, backendProperties.getBaseUrl());
+        });
+
+        return new CustomizedWebClientRegistry(clients, resources);
+    }
+
+    @Bean("defaultWebClientWithApimAndDirectServer")
+    @ConditionalOnExpression("${web.client.apim.enabled:false} and ${web.client.direct-server.enabled:false}")
+    public CustomizedWebClient createDefaultConnectWebClientWithApimAndDirectServer(OAuth2ClientProperties oAuth2ClientProperties, ReactiveOAuth2AuthorizedClientService authorizedClientService) {
+        return new CustomizedWebClient(
+                createWebClientWithApim(oAuth2ClientProperties, authorizedClientService),
+                createWebClientWithDirectServer(),
+                properties,
+                meterRegistry()
+        );
+    }
+
+    @Bean("defaultWebClientWithApim")
+    @ConditionalOnExpression("${web.client.apim.enabled:false} and !${web.client.direct-server.enabled:false}")
+    public CustomizedWebClient createDefaultConnectWebClientWithApim(OAuth2ClientProperties oAuth2ClientProperties, ReactiveOAuth2AuthorizedClientService authorizedClientService) {
+        return new CustomizedWebClient(
+                createWebClientWithApim(oAuth2ClientProperties, authorizedClientService),
+                null,
+                properties,
+                meterRegistry()
+        );
+    }
+
+
+    @Bean("defaultWebClientWithDirectServer")
+    @ConditionalOnExpression("!${web.client.apim.enabled:false} and ${web.client.direct-server.enabled:false}")
+    public CustomizedWebClient createDefaultConnectWebClientWithDirectServer() {
+        return new CustomizedWebClient(
+                null,
+                createWebClientWithDirectServer(),
+                properties,
+                meterRegistry()
+        );
+    }
+
+    /**
+     * the warm-up of a backend is enabled in its own properties, so the warm-up is always registered and does nothing
+     * when no client enables it
+     */
+    @Bean(name = "webClientWarmUp", destroyMethod = "dispose")
+    public WebClientWarmUp createWebClientWarmUp(ObjectProvider<CustomizedWebClient> webClientProvider, ObjectProvider<ApimTokenManager> tokenManagerProvider) {
+        return new WebClientWarmUp(webClientProvider.getIfAvailable(), properties, createWebClientBackends(),
+                tokenManagerProvider.getIfAvailable(), meterRegistry());
+    }
+
+    /**
+     * the health checks are authenticated as the calls, a secured health endpoint answers them
+     */
+    private LoadBalancer createLoadBalancer(String client, WebClientProperties.DirectServerProperties directServerProperties, HttpClient httpClient) {
+        WebClient.Builder healthCheckClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient));
+        configureAuthentication(healthCheckClient, directServerProperties.getSecurity());
+
+        LoadBalancer loadBalancer = new LoadBalancer(
+                client,
+                directServerProperties.getBaseUrl(),
+                directServerProperties.getEndpoints(),
+                directServerProperties.getLoadBalancer(),
+                healthCheckClient.build(),
+                meterRegistry()
+        );
+        loadBalancer.start();
+        return loadBalancer;
+    }
+
+    /**
+     * the direct server and each backend
+     */
+    private WebClient createDirectServerWebClient(String client, WebClientProperties.DirectServerProperties directServerProperties,
+                                                  HttpClient httpClient, LoadBalancer loadBalancer) {
         WebClient.Builder builder = WebClient.builder();
-        WebClientProperties.DirectServerProperties directServerProperties = properties.getDirectServer();
-        builder = builder.baseUrl(directServerProperties.getUrl());
+        builder = builder.baseUrl(directServerProperties.getBaseUrl());
+
+        configureAuthentication(builder, directServerProperties.getSecurity());
+
+        configureTransport(builder, httpClient.wiretap(directServerProperties.getLogging().getWiretap()),
+                directServerProperties.getCodec(), directServerProperties.getPath());
+
+        // routing to an endpoint first, so that the logs show the url really called
+        builder.filter(loadBalancer.filter());
+
+        // adding filers for loggin
+        builder.filter(WebClientFilters.logExchange(directServerProperties.getLogging()))
+                .filter(new WebClientMetrics(meterRegistry()).filter(client))
+                .filter(RequestCompression.filter(client, meterRegistry()))
+                .filter(new CallTimeouts(client, directServerProperties.getCallTimeout(),
+                        directServerProperties.getPath(), meterRegistry()).filter());
+
+        return builder.build();
+    }
 
-        final WebClientProperties.DirectServerProperties.SecurityProperties authProperties = directServerProperties.getSecurity();
+    private static void configureAuthentication(WebClient.Builder builder, WebClientProperties.DirectServerProperties.SecurityProperties authProperties) {
         if (authProperties != null) {
             builder.filter(ExchangeFilterFunctions.basicAuthentication(authProperties.getUsername(), authProperties.getPassword()));
         }
+    }
 
-        HttpClient httpClient = HttpClient.create();
+    private HttpClient createDirectServerHttpClient(String client, WebClientProperties.DirectServerProperties directServerProperties,
+                                                    WebClientConnectionPool pool) {
+        HttpClient httpClient = configureProtocol(HttpClient.create(pool.getConnectionProvider()), directServerProperties.getProtocol());
+        httpClient = createClientTransports().configure(httpClient, client, directServerProperties.getTransport());
+        httpClient = ClientTls.configure(httpClient, client, directServerProperties.getTls(),
+                directServerProperties.getProtocol(), meterRegistry());
 
         final WebClientProperties.DirectServerProperties.ProxyProperties proxyProperties = directServerProperties.getProxy();
 
@@ -95,44 +300,72 @@ public class WebClientConfig {
                     .addHandlerLast(new ReadTimeoutHandler(timeoutProperties.getRead(), TimeUnit.MILLISECONDS)));
         }
 
-        builder.clientConnector(new ReactorClientHttpConnector(httpClient.wiretap(true)));
+        return configureCompression(httpClient, directServerProperties.getCompression(), client);
+    }
 
-        // adding filers for loggin
-        builder.filter(WebClientFilters.logResposneStatus())
-                .filter(WebClientFilters.logRequest());
+    /**
+     * with H2 over an https url, reactor netty negotiates the version with ALPN, on its default ssl context or the one of the tls properties
+     */
+    private static HttpClient configureProtocol(HttpClient httpClient, WebClientProperties.ProtocolProperties protocolProperties) {
+        switch (protocolProperties.getVersion()) {
+            case H2:
+                httpClient = httpClient.protocol(HttpProtocol.H2);
+                break;
+            case H2C:
+                httpClient = httpClient.protocol(HttpProtocol.H2C);
+                break;
+            case H2_HTTP11:
+                httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+                break;
+            default:
+                return httpClient.protocol(HttpProtocol.HTTP11);
+        }
 
-        return builder.build();
+        return httpClient.http2Settings(settings -> settings
+                .maxConcurrentStreams(protocolProperties.getMaxConcurrentStreams())
+                .initialWindowSize(protocolProperties.getInitialWindowSize()));
     }
 
-    @Bean("defaultWebClientWithApimAndDirectServer")
-    @ConditionalOnExpression("${web.client.apim.enabled:false} and ${web.client.direct-server.enabled:false}")
-    public CustomizedWebClient createDefaultConnectWebClientWithApimAndDirectServer(OAuth2ClientProperties oAuth2ClientProperties, ReactiveOAuth2AuthorizedClientService authorizedClientService) {
-        return new CustomizedWebClient(
-                createWebClientWithApim(oAuth2ClientProperties, authorizedClientService),
-                createWebClientWithDirectServer(),
-                properties
-        );
-    }
+    /**
+     * the decompressor of reactor netty handles gzip and deflate, br and zstd are not advertised
+     */
+    private HttpClient configureCompression(HttpClient httpClient, WebClientProperties.CompressionProperties compressionProperties, String client) {
+        if (!compressionProperties.getEnabled()) {
+            return httpClient;
+        }
 
-    @Bean("defaultWebClientWithApim")
-    @ConditionalOnExpression("${web.client.apim.enabled:false} and !${web.client.direct-server.enabled:false}")
-    public CustomizedWebClient createDefaultConnectWebClientWithApim(OAuth2ClientProperties oAuth2ClientProperties, ReactiveOAuth2AuthorizedClientService authorizedClientService) {
-        return new CustomizedWebClient(
-                createWebClientWithApim(oAuth2ClientProperties, authorizedClientService),
-                null,
-                properties
-        );
+        return httpClient.compress(true)
+                .doOnConnected(connection -> ResponseCompressionMetrics.install(connection, client, meterRegistry()));
     }
 
+    /**
+     * the paths marked local are sent in memory to the HttpHandler of this application, the others through reactor netty
+     */
+    private void configureTransport(WebClient.Builder builder, HttpClient httpClient, WebClientProperties.CodecProperties codecProperties,
+                                    Map<String, WebClientProperties.PathProperties> paths) {
+        final ExchangeStrategies strategies = ExchangeStrategies.builder()
+                .codecs(configurer -> BinaryCodecs.register(configurer, codecProperties.getFormats()))
+                .build();
+        final ReactorClientHttpConnector connector = new ReactorClientHttpConnector(httpClient);
 
-    @Bean("defaultWebClientWithDirectServer")
-    @ConditionalOnExpression("!${web.client.apim.enabled:false} and ${web.client.direct-server.enabled:false}")
-    public CustomizedWebClient createDefaultConnectWebClientWithDirectServer() {
-        return new CustomizedWebClient(
-                null,
-                createWebClientWithDirectServer(),
-                properties
-        );
+        final Set<String> localPaths = LocalExchangeFunction.localPaths(paths);
+        if (localPaths.isEmpty()) {
+            builder.clientConnector(connector).exchangeStrategies(strategies);
+            return;
+        }
+
+        log.info("Paths {} are sent in memory", localPaths);
+        final LocalClientHttpConnector localConnector = new LocalClientHttpConnector(() -> httpHandlerProvider.getIfAvailable(() -> {
+            throw new IllegalStateException("A path is marked local but the application has no HttpHandler");
+        }));
+        builder.exchangeFunction(new LocalExchangeFunction(
+                ExchangeFunctions.create(connector, strategies),
+                ExchangeFunctions.create(localConnector, strategies),
+                localPaths));
+    }
+
+    private MeterRegistry meterRegistry() {
+        return meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
     }
 
 
@@ -0,0 +1,115 @@
+package webclient.config;
+
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * dedicated connection pool of a web client.
+ * reactor netty keeps one pool per remote address inside a {@link ConnectionProvider},
+ * the counts exposed here are summed over all of them
+ */
+public class WebClientConnectionPool implements ConnectionProvider.MeterRegistrar {
+
+    private final String name;
+    private final ConnectionProvider connectionProvider;
+    private final Map<SocketAddress, ConnectionPoolMetrics> poolMetrics = new ConcurrentHashMap<>();
+
+    /**
+     * @param name
+     * @param poolProperties
+     */
+    public WebClientConnectionPool(String name, WebClientProperties.PoolProperties poolProperties) {
+        this(name, poolProperties, null);
+    }
+
+    /**
+     * @param name
+     * @param poolProperties
+     * @param protocolProperties with HTTP/2 a connection carries many streams, its max connections replaces the pool one when set
+     */
+    public WebClientConnectionPool(String name, WebClientProperties.PoolProperties poolProperties, WebClientProperties.ProtocolProperties protocolProperties) {
+        this.name = name;
+
+        int maxConnections = protocolProperties != null && protocolProperties.isHttp2() && protocolProperties.getMaxConnections() != null
+                ? protocolProperties.getMaxConnections()
+                : poolProperties.getMaxConnections();
+
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(poolProperties.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(poolProperties.getPendingAcquireTimeout())
+                .metrics(true, () -> this);
+
+        if (poolProperties.getMaxIdleTime() != null) {
+            builder = builder.maxIdleTime(poolProperties.getMaxIdleTime());
+        }
+        if (poolProperties.getMaxLifeTime() != null) {
+            builder = builder.maxLifeTime(poolProperties.getMaxLifeTime());
+        }
+        if (!poolProperties.getEvictionInterval().isZero()) {
+            builder = builder.evictInBackground(poolProperties.getEvictionInterval());
+        }
+        if (poolProperties.getLeasingStrategy() == WebClientProperties.PoolProperties.LeasingStrategy.LIFO) {
+            builder = builder.lifo();
+        } else {
+            builder = builder.fifo();
+        }
+
+        this.connectionProvider = builder.build();
+    }
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        poolMetrics.put(remoteAddress, metrics);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ConnectionProvider getConnectionProvider() {
+        return connectionProvider;
+    }
+
+    /**
+     * @return connections currently leased to a request
+     */
+    public int getActiveConnections() {
+        return sum(ConnectionPoolMetrics::acquiredSize);
+    }
+
+    /**
+     * @return open connections waiting in the pool
+     */
+    public int getIdleConnections() {
+        return sum(ConnectionPoolMetrics::idleSize);
+    }
+
+    /**
+     * @return requests waiting for a connection
+     */
+    public int getPendingAcquires() {
+        return sum(ConnectionPoolMetrics::pendingAcquireSize);
+    }
+
+    /**
+     * @return the metrics of each remote address this pool has connected to
+     */
+    public Map<SocketAddress, ConnectionPoolMetrics> getPoolMetrics() {
+        return Collections.unmodifiableMap(poolMetrics);
+    }
+
+    public void dispose() {
+        connectionProvider.dispose();
+    }
+
+    private int sum(ToIntFunction<ConnectionPoolMetrics> size) {
+        return poolMetrics.values().stream().mapToInt(size).sum();
+    }
+}
@@ -1,11 +1,19 @@
 package webclient.config;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import reactor.core.publisher.Mono;
 
+import java.util.concurrent.TimeUnit;
+
 @Slf4j
 public class WebClientFilters {
+
+    /**
+     * @deprecated logs every request, use {@link #logExchange(WebClientProperties.LoggingProperties)}
+     */
+    @Deprecated
     public static ExchangeFilterFunction logRequest() {
         return ExchangeFilterFunction.ofRequestProcessor(clientRequest -> {
             log.info("Request: {} {}", clientRequest.method(), clientRequest.url());
@@ -19,10 +27,80 @@ public class WebClientFilters {
         });
     }
 
+    /**
+     * @deprecated logs every response, use {@link #logExchange(WebClientProperties.LoggingProperties)}
+     */
+    @Deprecated
     public static ExchangeFilterFunction logResposneStatus() {
         return ExchangeFilterFunction.ofResponseProcessor(clientResponse -> {
             log.info("Response Status {}", clientResponse.statusCode());
             return Mono.just(clientResponse);
         });
     }
+
+    /**
+     * logs a single line per exchange with its status and latency.
+     * errors and slow exchanges are logged according to the policy,
+     * the other exchanges only when the sampler lets them through
+     *
+     * @param loggingProperties
+     * @return
+     */
+    public static ExchangeFilterFunction logExchange(WebClientProperties.LoggingProperties loggingProperties) {
+        final WebClientProperties.LoggingProperties.Policy policy = loggingProperties.getPolicy();
+        if (policy == WebClientProperties.LoggingProperties.Policy.NONE) {
+            return (request, next) -> next.exchange(request);
+        }
+
+        final boolean logSampled = policy == WebClientProperties.LoggingProperties.Policy.ALL;
+        final boolean logErrors = logSampled
+                || policy == WebClientProperties.LoggingProperties.Policy.ERRORS
+                || policy == WebClientProperties.LoggingProperties.Policy.ERRORS_OR_SLOW;
+        final boolean logSlow = logSampled
+                || policy == WebClientProperties.LoggingProperties.Policy.SLOW
+                || policy == WebClientProperties.LoggingProperties.Policy.ERRORS_OR_SLOW;
+        final long slowThreshold = loggingProperties.getSlowThreshold().toNanos();
+        final ExchangeLogSampler sampler = new ExchangeLogSampler(loggingProperties.getSampleRate(), loggingProperties.getMaxPerSecond());
+
+        return (request, next) -> {
+            // errors are logged at WARN, slow and sampled exchanges at INFO
+            final boolean warnErrors = logErrors && log.isWarnEnabled();
+            final boolean info = (logSlow || logSampled) && log.isInfoEnabled();
+            if (!warnErrors && !info) {
+                return next.exchange(request);
+            }
+
+            final long start = System.nanoTime();
+            return next.exchange(request)
+                    .doOnSuccess(response -> {
+                        final long latency = System.nanoTime() - start;
+                        final int status = response.rawStatusCode();
+                        if (status >= 400) {
+                            if (warnErrors) {
+                                log.warn("method={} url={} status={} latencyMs={}", request.method(), request.url(), status, toMillis(latency));
+                            }
+                        } else if (info && ((logSlow && latency >= slowThreshold) || (logSampled && sampler.sample()))) {
+                            log.info("method={} url={} status={} latencyMs={}", request.method(), request.url(), status, toMillis(latency));
+                            logHeaders(request);
+                        }
+                    })
+                    .doOnError(throwable -> {
+                        if (warnErrors) {
+                            log.warn("method={} url={} status=none latencyMs={} error={}", request.method(), request.url(),
+                                    toMillis(System.nanoTime() - start), throwable.toString());
+                        }
+                    });
+        };
+    }
+
+    private static void logHeaders(ClientRequest request) {
+        if (log.isDebugEnabled()) {
+            request.headers()
+                    .forEach((name, values) -> values.forEach(value -> log.debug("{}={}", name, value)));
+        }
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
 }
@@ -5,12 +5,19 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.ConstructorBinding;
 import org.springframework.boot.context.properties.bind.DefaultValue;
 import org.springframework.util.Assert;
+import org.springframework.util.unit.DataSize;
 import org.springframework.validation.annotation.Validated;
 
 import javax.validation.Valid;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 @Getter
@@ -28,29 +35,97 @@ public class WebClientProperties {
     @Valid
     private WebClientProperties.RetryConfigProperties retry;
 
+    /**
+     * other servers called directly, by name. each enabled one gets its own client, pool and load balancer,
+     * configured like the direct server
+     */
+    @Valid
+    private Map<String, WebClientProperties.DirectServerProperties> backends;
+
     public WebClientProperties(
             WebClientProperties.ApimProperties apim,
             WebClientProperties.DirectServerProperties directServer,
-            WebClientProperties.RetryConfigProperties retry
+            @DefaultValue WebClientProperties.RetryConfigProperties retry,
+            Map<String, WebClientProperties.DirectServerProperties> backends
     ) {
         this.apim = apim;
         this.directServer = directServer;
         this.retry = retry;
+        this.backends = backends == null ? Collections.emptyMap() : backends;
+        Assert.isTrue(!this.backends.containsKey("apim") && !this.backends.containsKey("direct"),
+                "The backends cannot be named apim or direct");
     }
 
     @Getter
     @ConstructorBinding
     public static final class RetryConfigProperties {
+
+        public enum Jitter {
+            NONE, FULL, DECORRELATED
+        }
+
         private Integer maxAttempts;
 
         private Duration minBackoff;
 
+        /**
+         * upper bound of a backoff, a Retry-After longer than this ends the retries
+         */
+        private Duration maxBackoff;
+
+        private Jitter jitter;
+
+        /**
+         * retries POST calls even when the request may have reached the server
+         */
+        private Boolean retryNonIdempotent;
+
+        @Valid
+        private RetryConfigProperties.BudgetProperties budget;
+
         public RetryConfigProperties(
                 @DefaultValue("10") Integer maxAttempts,
-                @DefaultValue("1s") Duration minBackoff
+                @DefaultValue("1s") Duration minBackoff,
+                @DefaultValue("30s") Duration maxBackoff,
+                @DefaultValue("FULL") Jitter jitter,
+                @DefaultValue("false") Boolean retryNonIdempotent,
+                @DefaultValue RetryConfigProperties.BudgetProperties budget
         ) {
             this.maxAttempts = maxAttempts;
             this.minBackoff = minBackoff;
+            this.maxBackoff = maxBackoff;
+            this.jitter = jitter;
+            this.retryNonIdempotent = retryNonIdempotent;
+            this.budget = budget;
+        }
+
+        /**
+         * token bucket shared by all the calls of a client, every successful call
+         * deposits ratio token and every retry takes one, so the retries stay below
+         * this fraction of the traffic
+         */
+        @Getter
+        @ConstructorBinding
+        public static final class BudgetProperties {
+
+            private Boolean enabled;
+
+            @DecimalMin("0.0")
+            @DecimalMax("1.0")
+            private Double ratio;
+
+            @Min(1)
+            private Integer maxTokens;
+
+            public BudgetProperties(
+                    @DefaultValue("true") Boolean enabled,
+                    @DefaultValue("0.2") Double ratio,
+                    @DefaultValue("20") Integer maxTokens
+            ) {
+                this.enabled = enabled;
+                this.ratio = ratio;
+                this.maxTokens = maxTokens;
+            }
         }
 
     }
@@ -69,11 +144,63 @@ public class WebClientProperties {
         @Valid
         private Map<String, WebClientProperties.PathProperties> path;
 
+        @Valid
+        private WebClientProperties.PoolProperties pool;
+
+        @Valid
+        private WebClientProperties.LoggingProperties logging;
+
+        @Valid
+        private WebClientProperties.CircuitBreakerProperties circuitBreaker;
+
+        @Valid
+        private WebClientProperties.ConcurrencyLimitProperties concurrencyLimit;
+
+        @Valid
+        private WebClientProperties.RateLimitProperties rateLimit;
+
+        @Valid
+        private WebClientProperties.ProtocolProperties protocol;
+
+        @Valid
+        private WebClientProperties.CompressionProperties compression;
+
+        @Valid
+        private WebClientProperties.CodecProperties codec;
+
+        @Valid
+        private ApimProperties.TokenProperties token;
+
+        @Valid
+        private WebClientProperties.TransportProperties transport;
+
+        @Valid
+        private WebClientProperties.WarmUpProperties warmUp;
+
+        @Valid
+        private WebClientProperties.TlsProperties tls;
+
+        @Valid
+        private WebClientProperties.CallTimeoutProperties callTimeout;
+
         public ApimProperties(
                 @DefaultValue("false") Boolean enabled,
                 String url,
                 @DefaultValue("DEV") String headerMultiBackend,
-                Map<String, WebClientProperties.PathProperties> path
+                Map<String, WebClientProperties.PathProperties> path,
+                @DefaultValue WebClientProperties.PoolProperties pool,
+                @DefaultValue WebClientProperties.LoggingProperties logging,
+                @DefaultValue WebClientProperties.CircuitBreakerProperties circuitBreaker,
+                @DefaultValue WebClientProperties.ConcurrencyLimitProperties concurrencyLimit,
+                @DefaultValue WebClientProperties.RateLimitProperties rateLimit,
+                @DefaultValue WebClientProperties.ProtocolProperties protocol,
+                @DefaultValue WebClientProperties.CompressionProperties compression,
+                @DefaultValue WebClientProperties.CodecProperties codec,
+                @DefaultValue ApimProperties.TokenProperties token,
+                @DefaultValue WebClientProperties.TransportProperties transport,
+                @DefaultValue WebClientProperties.WarmUpProperties warmUp,
+                @DefaultValue WebClientProperties.TlsProperties tls,
+                @DefaultValue WebClientProperties.CallTimeoutProperties callTimeout
         ) {
             if (enabled) {
                 Assert.notNull(path, "When APIM is enabled, please mention a path");
@@ -83,8 +210,45 @@ public class WebClientProperties {
             this.url = url;
             this.headerMultiBackend = headerMultiBackend;
             this.path = path;
+            this.pool = pool;
+            this.logging = logging;
+            this.circuitBreaker = circuitBreaker;
+            this.concurrencyLimit = concurrencyLimit;
+            this.rateLimit = rateLimit;
+            this.protocol = protocol;
+            this.compression = compression;
+            this.codec = codec;
+            this.token = token;
+            this.transport = transport;
+            this.warmUp = warmUp;
+            this.tls = tls;
+            this.callTimeout = callTimeout;
         }
 
+        /**
+         * access token of the apim registration.
+         * the token is fetched again in the background when it expires within the skew, the requests keep
+         * the current token meanwhile and the concurrent fetches are merged into one
+         */
+        @Getter
+        @ConstructorBinding
+        public static class TokenProperties {
+
+            private Duration skew;
+
+            /**
+             * delay before a failed background refresh is tried again, while the current token is still valid
+             */
+            private Duration refreshRetryInterval;
+
+            public TokenProperties(
+                    @DefaultValue("60s") Duration skew,
+                    @DefaultValue("5s") Duration refreshRetryInterval
+            ) {
+                this.skew = skew;
+                this.refreshRetryInterval = refreshRetryInterval;
+            }
+        }
     }
 
     @Getter
@@ -107,17 +271,84 @@ public class WebClientProperties {
         @Valid
         private Map<String, PathProperties> path;
 
+        @Valid
+        private WebClientProperties.PoolProperties pool;
+
+        @Valid
+        private WebClientProperties.LoggingProperties logging;
+
+        @Valid
+        private WebClientProperties.CircuitBreakerProperties circuitBreaker;
+
+        @Valid
+        private WebClientProperties.ConcurrencyLimitProperties concurrencyLimit;
+
+        @Valid
+        private WebClientProperties.RateLimitProperties rateLimit;
+
+        /**
+         * instances of the direct server balanced by the client, used instead of the url when set
+         */
+        @Valid
+        private List<DirectServerProperties.EndpointProperties> endpoints;
+
+        @Valid
+        private DirectServerProperties.LoadBalancerProperties loadBalancer;
+
+        @Valid
+        private WebClientProperties.ProtocolProperties protocol;
+
+        @Valid
+        private WebClientProperties.CompressionProperties compression;
+
+        @Valid
+        private WebClientProperties.CodecProperties codec;
+
+        @Valid
+        private WebClientProperties.TransportProperties transport;
+
+        @Valid
+        private WebClientProperties.WarmUpProperties warmUp;
+
+        @Valid
+        private WebClientProperties.TlsProperties tls;
+
+        @Valid
+        private WebClientProperties.CallTimeoutProperties callTimeout;
+
+        /**
+         * retries of this server, the global ones apply when not set
+         */
+        @Valid
+        private WebClientProperties.RetryConfigProperties retry;
+
         public DirectServerProperties(
                 @DefaultValue("false") Boolean enabled,
                 String url,
                 DirectServerProperties.SecurityProperties security,
                 DirectServerProperties.ProxyProperties proxy,
                 DirectServerProperties.TimeoutProperties timeout,
-                Map<String, WebClientProperties.PathProperties> path
+                Map<String, WebClientProperties.PathProperties> path,
+                @DefaultValue WebClientProperties.PoolProperties pool,
+                @DefaultValue WebClientProperties.LoggingProperties logging,
+                @DefaultValue WebClientProperties.CircuitBreakerProperties circuitBreaker,
+                @DefaultValue WebClientProperties.ConcurrencyLimitProperties concurrencyLimit,
+                @DefaultValue WebClientProperties.RateLimitProperties rateLimit,
+                List<DirectServerProperties.EndpointProperties> endpoints,
+                @DefaultValue DirectServerProperties.LoadBalancerProperties loadBalancer,
+                @DefaultValue WebClientProperties.ProtocolProperties protocol,
+                @DefaultValue WebClientProperties.CompressionProperties compression,
+                @DefaultValue WebClientProperties.CodecProperties codec,
+                @DefaultValue WebClientProperties.TransportProperties transport,
+                @DefaultValue WebClientProperties.WarmUpProperties warmUp,
+                @DefaultValue WebClientProperties.TlsProperties tls,
+                @DefaultValue WebClientProperties.CallTimeoutProperties callTimeout,
+                WebClientProperties.RetryConfigProperties retry
         ) {
             if (enabled) {
                 Assert.notNull(path, "When Direct Server is enabled, please mention a path");
-                Assert.notNull(url, "When Direct Server is enabled, please mention an Direct Server url");
+                Assert.isTrue(url != null || (endpoints != null && !endpoints.isEmpty()),
+                        "When Direct Server is enabled, please mention an Direct Server url or endpoints");
             }
             this.enabled = enabled;
             this.url = url;
@@ -125,6 +356,153 @@ public class WebClientProperties {
             this.proxy = proxy;
             this.timeout = timeout;
             this.path = path;
+            this.pool = pool;
+            this.logging = logging;
+            this.circuitBreaker = circuitBreaker;
+            this.concurrencyLimit = concurrencyLimit;
+            this.rateLimit = rateLimit;
+            this.endpoints = endpoints;
+            this.loadBalancer = loadBalancer;
+            this.protocol = protocol;
+            this.compression = compression;
+            this.codec = codec;
+            this.transport = transport;
+            this.warmUp = warmUp;
+            this.tls = tls;
+            this.callTimeout = callTimeout;
+            this.retry = retry;
+        }
+
+        /**
+         * @return the url the requests are built against, the first endpoint when no url is set
+         */
+        public String getBaseUrl() {
+            return url != null || endpoints == null || endpoints.isEmpty() ? url : endpoints.get(0).getUrl();
+        }
+
+        @Getter
+        @ConstructorBinding
+        public static class EndpointProperties {
+            @Size(min = 1)
+            private String url;
+
+            /**
+             * WEIGHTED_ROUND_ROBIN only
+             */
+            @Min(1)
+            private Integer weight;
+
+            public EndpointProperties(
+                    String url,
+                    @DefaultValue("1") Integer weight
+            ) {
+                this.url = url;
+                this.weight = weight;
+            }
+        }
+
+        @Getter
+        @ConstructorBinding
+        public static class LoadBalancerProperties {
+
+            public enum Strategy {
+                /**
+                 * the less busy of two random endpoints
+                 */
+                P2C_LEAST_OUTSTANDING,
+                WEIGHTED_ROUND_ROBIN,
+                /**
+                 * the fastest of two random endpoints, by moving average latency times outstanding requests
+                 */
+                LATENCY_EWMA
+            }
+
+            private Strategy strategy;
+
+            /**
+             * LATENCY_EWMA only, age after which a latency weighs about a third
+             */
+            private Duration ewmaDecay;
+
+            @Valid
+            private LoadBalancerProperties.HealthCheckProperties healthCheck;
+
+            @Valid
+            private LoadBalancerProperties.OutlierEjectionProperties outlierEjection;
+
+            public LoadBalancerProperties(
+                    @DefaultValue("P2C_LEAST_OUTSTANDING") Strategy strategy,
+                    @DefaultValue("10s") Duration ewmaDecay,
+                    @DefaultValue LoadBalancerProperties.HealthCheckProperties healthCheck,
+                    @DefaultValue LoadBalancerProperties.OutlierEjectionProperties outlierEjection
+            ) {
+                this.strategy = strategy;
+                this.ewmaDecay = ewmaDecay;
+                this.healthCheck = healthCheck;
+                this.outlierEjection = outlierEjection;
+            }
+
+            /**
+             * periodic GET of every endpoint, an endpoint answering anything but 2xx gets no traffic
+             */
+            @Getter
+            @ConstructorBinding
+            public static class HealthCheckProperties {
+
+                private Boolean enabled;
+
+                private String path;
+
+                private Duration interval;
+
+                private Duration timeout;
+
+                public HealthCheckProperties(
+                        @DefaultValue("false") Boolean enabled,
+                        @DefaultValue("/actuator/health") String path,
+                        @DefaultValue("10s") Duration interval,
+                        @DefaultValue("2s") Duration timeout
+                ) {
+                    this.enabled = enabled;
+                    this.path = path;
+                    this.interval = interval;
+                    this.timeout = timeout;
+                }
+            }
+
+            /**
+             * an endpoint failing several calls in a row gets no traffic for a while
+             */
+            @Getter
+            @ConstructorBinding
+            public static class OutlierEjectionProperties {
+
+                private Boolean enabled;
+
+                @Min(1)
+                private Integer consecutiveFailures;
+
+                private Duration ejectionTime;
+
+                /**
+                 * share of the endpoints that can be ejected at the same time
+                 */
+                @Min(0)
+                @Max(100)
+                private Integer maxEjectionPercent;
+
+                public OutlierEjectionProperties(
+                        @DefaultValue("true") Boolean enabled,
+                        @DefaultValue("5") Integer consecutiveFailures,
+                        @DefaultValue("30s") Duration ejectionTime,
+                        @DefaultValue("50") Integer maxEjectionPercent
+                ) {
+                    this.enabled = enabled;
+                    this.consecutiveFailures = consecutiveFailures;
+                    this.ejectionTime = ejectionTime;
+                    this.maxEjectionPercent = maxEjectionPercent;
+                }
+            }
         }
 
         @Getter
@@ -191,15 +569,925 @@ public class WebClientProperties {
         private String uri;
         private Map<String, Object> properties;
 
+        @Valid
+        private PathProperties.CacheProperties cache;
+
+        /**
+         * identical GET calls in flight at the same time share a single request
+         */
+        private Boolean coalesce;
+
+        @Valid
+        private PathProperties.BatchProperties batch;
+
+        @Valid
+        private PathProperties.HedgeProperties hedge;
+
+        @Valid
+        private WebClientProperties.RateLimitProperties rateLimit;
+
+        @Valid
+        private PathProperties.CompressionProperties compression;
+
+        /**
+         * format of the bodies of the path, the preferred format of the client applies when not set
+         */
+        private WebClientProperties.CodecProperties.Format format;
+
+        /**
+         * the path is served by a handler of this application, the calls are dispatched in memory
+         * to its HttpHandler instead of going through the network
+         */
+        private Boolean local;
+
+        @Valid
+        private PathProperties.TimeoutProperties timeout;
+
         public PathProperties(
                 String uri,
-                Map<String, Object> properties
+                Map<String, Object> properties,
+                @DefaultValue PathProperties.CacheProperties cache,
+                @DefaultValue("false") Boolean coalesce,
+                @DefaultValue PathProperties.BatchProperties batch,
+                @DefaultValue PathProperties.HedgeProperties hedge,
+                @DefaultValue WebClientProperties.RateLimitProperties rateLimit,
+                @DefaultValue PathProperties.CompressionProperties compression,
+                WebClientProperties.CodecProperties.Format format,
+                @DefaultValue("false") Boolean local,
+                @DefaultValue PathProperties.TimeoutProperties timeout
         ) {
             this.uri = uri;
             this.properties = properties;
+            this.cache = cache;
+            this.coalesce = coalesce;
+            this.batch = batch;
+            this.hedge = hedge;
+            this.rateLimit = rateLimit;
+            this.compression = compression;
+            this.format = format;
+            this.local = local;
+            this.timeout = timeout;
+        }
+
+        /**
+         * timeouts of a path, the ones of the client apply when not set
+         */
+        @Getter
+        @ConstructorBinding
+        public static class TimeoutProperties {
+
+            private Duration response;
+
+            private Duration write;
+
+            /**
+             * wait for a connection of the pool, only shorter than the pending acquire timeout of the pool has an effect
+             */
+            private Duration pendingAcquire;
+
+            private Duration deadline;
+
+            public TimeoutProperties(
+                    Duration response,
+                    Duration write,
+                    Duration pendingAcquire,
+                    Duration deadline
+            ) {
+                this.response = response;
+                this.write = write;
+                this.pendingAcquire = pendingAcquire;
+                this.deadline = deadline;
+            }
+        }
+
+        /**
+         * request compression of a path, the settings of the client apply when not set
+         */
+        @Getter
+        @ConstructorBinding
+        public static class CompressionProperties {
+
+            private Boolean requestEnabled;
+
+            private DataSize requestThreshold;
+
+            public CompressionProperties(
+                    Boolean requestEnabled,
+                    DataSize requestThreshold
+            ) {
+                this.requestEnabled = requestEnabled;
+                this.requestThreshold = requestThreshold;
+            }
+        }
+
+        /**
+         * hedging of the GET calls of a path
+         */
+        @Getter
+        @ConstructorBinding
+        public static class HedgeProperties {
+
+            private Boolean enabled;
+
+            /**
+             * wait before the hedge is sent, also used while too few latencies are observed for the percentile
+             */
+            private Duration delay;
+
+            /**
+             * when set, the hedge is sent after this observed latency percentile of the path, for instance 0.95
+             */
+            @DecimalMin("0.5")
+            @DecimalMax("1.0")
+            private Double percentile;
+
+            /**
+             * hedges of the path in flight at the same time
+             */
+            @Min(1)
+            private Integer maxOutstanding;
+
+            public HedgeProperties(
+                    @DefaultValue("false") Boolean enabled,
+                    @DefaultValue("100ms") Duration delay,
+                    Double percentile,
+                    @DefaultValue("10") Integer maxOutstanding
+            ) {
+                this.enabled = enabled;
+                this.delay = delay;
+                this.percentile = percentile;
+                this.maxOutstanding = maxOutstanding;
+            }
+        }
+
+        /**
+         * window of the batch executors of a bulk path
+         */
+        @Getter
+        @ConstructorBinding
+        public static class BatchProperties {
+
+            @Min(1)
+            private Integer maxSize;
+
+            private Duration maxWait;
+
+            public BatchProperties(
+                    @DefaultValue("100") Integer maxSize,
+                    @DefaultValue("10ms") Duration maxWait
+            ) {
+                this.maxSize = maxSize;
+                this.maxWait = maxWait;
+            }
+        }
+
+        /**
+         * in memory cache of the GET responses of a path,
+         * driven by the Cache-Control, ETag and Last-Modified headers of the server
+         */
+        @Getter
+        @ConstructorBinding
+        public static class CacheProperties {
+
+            private Boolean enabled;
+
+            @Min(1)
+            private Long maximumSize;
+
+            /**
+             * freshness of a response without max-age, zero means it is revalidated on every call
+             */
+            private Duration defaultTtl;
+
+            /**
+             * used when the response has no stale-while-revalidate directive
+             */
+            private Duration staleWhileRevalidate;
+
+            public CacheProperties(
+                    @DefaultValue("false") Boolean enabled,
+                    @DefaultValue("1000") Long maximumSize,
+                    @DefaultValue("0s") Duration defaultTtl,
+                    @DefaultValue("0s") Duration staleWhileRevalidate
+            ) {
+                this.enabled = enabled;
+                this.maximumSize = maximumSize;
+                this.defaultTtl = defaultTtl;
+                this.staleWhileRevalidate = staleWhileRevalidate;
+            }
         }
 
     }
 
+    /**
+     * connection pool of a web client, every client gets its own
+     * {@link reactor.netty.resources.ConnectionProvider} built from these values
+     */
+    @Getter
+    @ConstructorBinding
+    public static class PoolProperties {
+
+        public enum LeasingStrategy {
+            FIFO, LIFO
+        }
+
+        @Min(1)
+        private Integer maxConnections;
+
+        /**
+         * -1 means no limit on the pending acquire queue
+         */
+        @Min(-1)
+        private Integer pendingAcquireMaxCount;
+
+        private Duration pendingAcquireTimeout;
+
+        private Duration maxIdleTime;
+
+        private Duration maxLifeTime;
+
+        /**
+         * zero disables the background eviction
+         */
+        private Duration evictionInterval;
+
+        private LeasingStrategy leasingStrategy;
+
+        public PoolProperties(
+                @DefaultValue("500") Integer maxConnections,
+                @DefaultValue("1000") Integer pendingAcquireMaxCount,
+                @DefaultValue("45s") Duration pendingAcquireTimeout,
+                Duration maxIdleTime,
+                Duration maxLifeTime,
+                @DefaultValue("0s") Duration evictionInterval,
+                @DefaultValue("FIFO") LeasingStrategy leasingStrategy
+        ) {
+            this.maxConnections = maxConnections;
+            this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+            this.pendingAcquireTimeout = pendingAcquireTimeout;
+            this.maxIdleTime = maxIdleTime;
+            this.maxLifeTime = maxLifeTime;
+            this.evictionInterval = evictionInterval;
+            this.leasingStrategy = leasingStrategy;
+        }
+    }
+
+    /**
+     * logging of the exchanges of a web client, one line per exchange with its latency
+     */
+    @Getter
+    @ConstructorBinding
+    public static class LoggingProperties {
+
+        public enum Policy {
+            /**
+             * sampled exchanges, errors and slow exchanges
+             */
+            ALL,
+            ERRORS,
+            SLOW,
+            ERRORS_OR_SLOW,
+            NONE
+        }
+
+        private Policy policy;
+
+        /**
+         * probability for an ordinary exchange to be logged with the ALL policy
+         */
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private Double sampleRate;
+
+        /**
+         * upper bound of ordinary exchanges logged per second, 0 means no bound
+         */
+        @Min(0)
+        private Integer maxPerSecond;
+
+        private Duration slowThreshold;
+
+        /**
+         * adds the netty logging handler to every connection, very verbose
+         */
+        private Boolean wiretap;
+
+        public LoggingProperties(
+                @DefaultValue("ALL") Policy policy,
+                @DefaultValue("1.0") Double sampleRate,
+                @DefaultValue("0") Integer maxPerSecond,
+                @DefaultValue("1s") Duration slowThreshold,
+                @DefaultValue("false") Boolean wiretap
+        ) {
+            this.policy = policy;
+            this.sampleRate = sampleRate;
+            this.maxPerSecond = maxPerSecond;
+            this.slowThreshold = slowThreshold;
+            this.wiretap = wiretap;
+        }
+    }
+
+    /**
+     * circuit breaker of a web client, there is one breaker per path key
+     */
+    @Getter
+    @ConstructorBinding
+    public static class CircuitBreakerProperties {
+
+        private Boolean enabled;
+
+        /**
+         * number of the last calls the rates are computed on
+         */
+        @Min(1)
+        private Integer slidingWindowSize;
+
+        @Min(1)
+        private Integer minimumNumberOfCalls;
+
+        /**
+         * percentage of failed calls opening the breaker
+         */
+        @Min(1)
+        @Max(100)
+        private Integer failureRateThreshold;
+
+        /**
+         * percentage of slow calls opening the breaker
+         */
+        @Min(1)
+        @Max(100)
+        private Integer slowCallRateThreshold;
+
+        private Duration slowCallDurationThreshold;
+
+        private Duration waitDurationInOpenState;
+
+        @Min(1)
+        private Integer permittedCallsInHalfOpenState;
+
+        public CircuitBreakerProperties(
+                @DefaultValue("false") Boolean enabled,
+                @DefaultValue("100") Integer slidingWindowSize,
+                @DefaultValue("20") Integer minimumNumberOfCalls,
+                @DefaultValue("50") Integer failureRateThreshold,
+                @DefaultValue("100") Integer slowCallRateThreshold,
+                @DefaultValue("5s") Duration slowCallDurationThreshold,
+                @DefaultValue("30s") Duration waitDurationInOpenState,
+                @DefaultValue("5") Integer permittedCallsInHalfOpenState
+        ) {
+            this.enabled = enabled;
+            this.slidingWindowSize = slidingWindowSize;
+            this.minimumNumberOfCalls = minimumNumberOfCalls;
+            this.failureRateThreshold = failureRateThreshold;
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            this.slowCallDurationThreshold = slowCallDurationThreshold;
+            this.waitDurationInOpenState = waitDurationInOpenState;
+            this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+        }
+    }
+
+    /**
+     * adaptive limit of the calls of a web client in flight
+     */
+    @Getter
+    @ConstructorBinding
+    public static class ConcurrencyLimitProperties {
+
+        public enum Algorithm {
+            AIMD, GRADIENT
+        }
+
+        private Boolean enabled;
+
+        private Algorithm algorithm;
+
+        @Min(1)
+        private Integer initialLimit;
+
+        @Min(1)
+        private Integer minLimit;
+
+        @Min(1)
+        private Integer maxLimit;
+
+        /**
+         * calls waiting for a permit, over it the calls are rejected
+         */
+        @Min(0)
+        private Integer maxQueue;
+
+        private Duration maxQueueWait;
+
+        /**
+         * factor applied to the limit after a drop
+         */
+        @DecimalMin("0.5")
+        @DecimalMax("1.0")
+        private Double backoffRatio;
+
+        /**
+         * AIMD only, a call slower than this is a drop
+         */
+        private Duration latencyThreshold;
+
+        /**
+         * GRADIENT only, weight of a new limit
+         */
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private Double smoothing;
+
+        public ConcurrencyLimitProperties(
+                @DefaultValue("false") Boolean enabled,
+                @DefaultValue("AIMD") Algorithm algorithm,
+                @DefaultValue("20") Integer initialLimit,
+                @DefaultValue("1") Integer minLimit,
+                @DefaultValue("200") Integer maxLimit,
+                @DefaultValue("50") Integer maxQueue,
+                @DefaultValue("1s") Duration maxQueueWait,
+                @DefaultValue("0.9") Double backoffRatio,
+                @DefaultValue("2s") Duration latencyThreshold,
+                @DefaultValue("0.2") Double smoothing
+        ) {
+            this.enabled = enabled;
+            this.algorithm = algorithm;
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.maxQueue = maxQueue;
+            this.maxQueueWait = maxQueueWait;
+            this.backoffRatio = backoffRatio;
+            this.latencyThreshold = latencyThreshold;
+            this.smoothing = smoothing;
+        }
+    }
+
+    /**
+     * token bucket limiting the calls sent by a client or to a path
+     */
+    @Getter
+    @ConstructorBinding
+    public static class RateLimitProperties {
+
+        public enum Mode {
+            WAIT, FAIL_FAST
+        }
+
+        private Boolean enabled;
+
+        /**
+         * permits added to the bucket every period
+         */
+        @Min(1)
+        private Integer limitForPeriod;
+
+        private Duration period;
+
+        /**
+         * size of the bucket, the calls allowed at once after an idle period
+         */
+        @Min(1)
+        private Integer burst;
+
+        /**
+         * WAIT delays a call until a permit is available, FAIL_FAST rejects it
+         */
+        private Mode mode;
+
+        /**
+         * WAIT only, a call that would wait longer is rejected
+         */
+        private Duration maxWait;
+
+        public RateLimitProperties(
+                @DefaultValue("false") Boolean enabled,
+                @DefaultValue("100") Integer limitForPeriod,
+                @DefaultValue("1s") Duration period,
+                @DefaultValue("100") Integer burst,
+                @DefaultValue("WAIT") Mode mode,
+                @DefaultValue("500ms") Duration maxWait
+        ) {
+            this.enabled = enabled;
+            this.limitForPeriod = limitForPeriod;
+            this.period = period;
+            this.burst = burst;
+            this.mode = mode;
+            this.maxWait = maxWait;
+        }
+    }
+
+    /**
+     * http version spoken by a web client.
+     * H2 needs an https url, the version is negotiated with ALPN, H2C needs an http url and starts with the
+     * HTTP/2 preface (prior knowledge). with HTTP/2 the requests are multiplexed as streams over few connections
+     */
+    @Getter
+    @ConstructorBinding
+    public static class ProtocolProperties {
+
+        public enum Version {
+            HTTP11, H2, H2C,
+            /**
+             * H2 when the server accepts it during ALPN, HTTP/1.1 otherwise
+             */
+            H2_HTTP11
+        }
+
+        private Version version;
+
+        /**
+         * HTTP/2 only, streams opened at the same time on a connection, advertised to the server
+         */
+        @Min(1)
+        private Long maxConcurrentStreams;
+
+        /**
+         * HTTP/2 only, flow control window of a stream in bytes
+         */
+        @Min(1)
+        private Integer initialWindowSize;
+
+        /**
+         * HTTP/2 only, connections per remote address, replaces the pool max connections when set
+         */
+        @Min(1)
+        private Integer maxConnections;
+
+        public ProtocolProperties(
+                @DefaultValue("HTTP11") Version version,
+                @DefaultValue("100") Long maxConcurrentStreams,
+                @DefaultValue("1048576") Integer initialWindowSize,
+                Integer maxConnections
+        ) {
+            this.version = version;
+            this.maxConcurrentStreams = maxConcurrentStreams;
+            this.initialWindowSize = initialWindowSize;
+            this.maxConnections = maxConnections;
+        }
+
+        public boolean isHttp2() {
+            return version != Version.HTTP11;
+        }
+    }
+
+    /**
+     * compression of the bodies of a web client
+     */
+    @Getter
+    @ConstructorBinding
+    public static class CompressionProperties {
+
+        /**
+         * sends Accept-Encoding gzip, deflate and decompresses the responses
+         */
+        private Boolean enabled;
+
+        /**
+         * gzips the request bodies of at least the request threshold, the server must accept Content-Encoding gzip
+         */
+        private Boolean requestEnabled;
+
+        private DataSize requestThreshold;
+
+        public CompressionProperties(
+                @DefaultValue("false") Boolean enabled,
+                @DefaultValue("false") Boolean requestEnabled,
+                @DefaultValue("2KB") DataSize requestThreshold
+        ) {
+            this.enabled = enabled;
+            this.requestEnabled = requestEnabled;
+            this.requestThreshold = requestThreshold;
+        }
+    }
+
+    /**
+     * binary codecs of a web client.
+     * the bodies are encoded in the preferred format when the caller gives no content type, and the preferred
+     * format is asked in the Accept header with json as fallback. a path answered by a 415 is sent as json from then on
+     */
+    @Getter
+    @ConstructorBinding
+    public static class CodecProperties {
+
+        public enum Format {
+            JSON,
+            CBOR,
+            SMILE,
+            /**
+             * bodies and responses of type com.google.protobuf.Message only, the others stay json
+             */
+            PROTOBUF
+        }
+
+        /**
+         * binary codecs registered on the client, besides json
+         */
+        private List<Format> formats;
+
+        private Format preferred;
+
+        public CodecProperties(
+                List<Format> formats,
+                @DefaultValue("JSON") Format preferred
+        ) {
+            this.formats = formats == null ? Collections.emptyList() : formats;
+            this.preferred = preferred;
+            Assert.isTrue(preferred == Format.JSON || this.formats.contains(preferred),
+                    "The preferred codec must be one of the registered formats");
+        }
+    }
+
+    /**
+     * netty transport of a web client.
+     * by default the client runs on the global loops of reactor netty, shared with the webflux server of the application
+     */
+    @Getter
+    @ConstructorBinding
+    public static class TransportProperties {
+
+        public enum Type {
+            /**
+             * io_uring, then epoll, then nio, the first one available
+             */
+            AUTO,
+            IO_URING,
+            EPOLL,
+            NIO
+        }
+
+        public enum Loops {
+            /**
+             * the global loops of reactor netty
+             */
+            GLOBAL,
+            /**
+             * loops shared by the web clients of this library only, sized and typed by the first client using them
+             */
+            SHARED,
+            DEDICATED
+        }
+
+        /**
+         * falls back to nio when the native transport is not available
+         */
+        private Type type;
+
+        private Loops loops;
+
+        /**
+         * threads of the shared or dedicated loops, the number of processors when not set
+         */
+        @Min(1)
+        private Integer workerCount;
+
+        private Boolean tcpNoDelay;
+
+        private Boolean keepAlive;
+
+        private DataSize sendBufferSize;
+
+        private DataSize receiveBufferSize;
+
+        @Valid
+        private TransportProperties.DnsProperties dns;
+
+        public TransportProperties(
+                @DefaultValue("AUTO") Type type,
+                @DefaultValue("GLOBAL") Loops loops,
+                Integer workerCount,
+                @DefaultValue("true") Boolean tcpNoDelay,
+                @DefaultValue("true") Boolean keepAlive,
+                DataSize sendBufferSize,
+                DataSize receiveBufferSize,
+                @DefaultValue TransportProperties.DnsProperties dns
+        ) {
+            this.type = type;
+            this.loops = loops;
+            this.workerCount = workerCount;
+            this.tcpNoDelay = tcpNoDelay;
+            this.keepAlive = keepAlive;
+            this.sendBufferSize = sendBufferSize;
+            this.receiveBufferSize = receiveBufferSize;
+            this.dns = dns;
+        }
+
+        /**
+         * asynchronous dns resolver of netty instead of the blocking resolver of the jdk, its records are cached
+         * for their ttl bounded by min ttl and max ttl
+         */
+        @Getter
+        @ConstructorBinding
+        public static class DnsProperties {
+
+            private Boolean enabled;
+
+            private Duration minTtl;
+
+            private Duration maxTtl;
+
+            /**
+             * time a failed resolution is cached
+             */
+            private Duration negativeTtl;
+
+            private Duration queryTimeout;
+
+            public DnsProperties(
+                    @DefaultValue("false") Boolean enabled,
+                    @DefaultValue("0s") Duration minTtl,
+                    @DefaultValue("5m") Duration maxTtl,
+                    @DefaultValue("0s") Duration negativeTtl,
+                    @DefaultValue("5s") Duration queryTimeout
+            ) {
+                this.enabled = enabled;
+                this.minTtl = minTtl;
+                this.maxTtl = maxTtl;
+                this.negativeTtl = negativeTtl;
+                this.queryTimeout = queryTimeout;
+            }
+        }
+    }
+
+    /**
+     * warm-up of a web client before the application reports it is ready: the apim token is fetched,
+     * pooled connections are opened and the paths are called, within the time budget
+     */
+    @Getter
+    @ConstructorBinding
+    public static class WarmUpProperties {
+
+        private Boolean enabled;
+
+        /**
+         * when false, the warm-up runs in the background and the readiness is not delayed
+         */
+        private Boolean blocking;
+
+        /**
+         * connections opened concurrently to the url, or to each endpoint when balanced, by HEAD requests on the connect path
+         */
+        @Min(0)
+        private Integer connections;
+
+        private String connectPath;
+
+        /**
+         * paths called with a GET, their responses are decoded and dropped
+         */
+        private List<String> paths;
+
+        @Min(1)
+        private Integer iterations;
+
+        /**
+         * time budget of the whole warm-up, what is not done by then is abandoned
+         */
+        private Duration timeout;
+
+        public WarmUpProperties(
+                @DefaultValue("false") Boolean enabled,
+                @DefaultValue("true") Boolean blocking,
+                @DefaultValue("4") Integer connections,
+                @DefaultValue("/") String connectPath,
+                List<String> paths,
+                @DefaultValue("3") Integer iterations,
+                @DefaultValue("10s") Duration timeout
+        ) {
+            this.enabled = enabled;
+            this.blocking = blocking;
+            this.connections = connections;
+            this.connectPath = connectPath;
+            this.paths = paths == null ? Collections.emptyList() : paths;
+            this.iterations = iterations;
+            this.timeout = timeout;
+        }
+    }
+
+
+    /**
+     * tls of a web client, when not enabled reactor netty uses its default jdk ssl context for the https urls
+     */
+    @Getter
+    @ConstructorBinding
+    public static class TlsProperties {
+
+        public enum Provider {
+            /**
+             * openssl when netty tcnative is on the classpath, the jdk otherwise
+             */
+            AUTO,
+            /**
+             * openssl or boringssl through netty tcnative
+             */
+            OPENSSL,
+            JDK
+        }
+
+        private Boolean enabled;
+
+        private Provider provider;
+
+        /**
+         * sessions kept for resumption, the default of the provider when not set
+         */
+        @Min(0)
+        private Long sessionCacheSize;
+
+        private Duration sessionTimeout;
+
+        /**
+         * the defaults of the provider when empty
+         */
+        private List<String> ciphers;
+
+        /**
+         * TLSv1.2, TLSv1.3, the defaults of the provider when empty
+         */
+        private List<String> protocols;
+
+        private Duration handshakeTimeout;
+
+        private Duration closeNotifyFlushTimeout;
+
+        private Duration closeNotifyReadTimeout;
+
+        public TlsProperties(
+                @DefaultValue("false") Boolean enabled,
+                @DefaultValue("AUTO") Provider provider,
+                Long sessionCacheSize,
+                Duration sessionTimeout,
+                List<String> ciphers,
+                List<String> protocols,
+                @DefaultValue("10s") Duration handshakeTimeout,
+                @DefaultValue("3s") Duration closeNotifyFlushTimeout,
+                @DefaultValue("0s") Duration closeNotifyReadTimeout
+        ) {
+            this.enabled = enabled;
+            this.provider = provider;
+            this.sessionCacheSize = sessionCacheSize;
+            this.sessionTimeout = sessionTimeout;
+            this.ciphers = ciphers == null ? Collections.emptyList() : ciphers;
+            this.protocols = protocols == null ? Collections.emptyList() : protocols;
+            this.handshakeTimeout = handshakeTimeout;
+            this.closeNotifyFlushTimeout = closeNotifyFlushTimeout;
+            this.closeNotifyReadTimeout = closeNotifyReadTimeout;
+        }
+    }
+
+
+    /**
+     * timeouts of the calls of a web client, each one can be overridden by the timeout of a path.
+     * the pending acquire timeout of the client is the one of its pool
+     */
+    @Getter
+    @ConstructorBinding
+    public static class CallTimeoutProperties {
+
+        /**
+         * from the request being sent to the response headers, per attempt. none when not set
+         */
+        private Duration response;
+
+        /**
+         * of each write of the request, none when not set
+         */
+        private Duration write;
+
+        /**
+         * of a whole call, its retries and backoffs included. none when not set
+         */
+        private Duration deadline;
+
+        /**
+         * an attempt is not started when less than this remains before the deadline
+         */
+        private Duration minAttemptTime;
+
+        /**
+         * the remaining time before the deadline is sent to the server, in milliseconds
+         */
+        private Boolean propagateDeadline;
+
+        private String deadlineHeader;
+
+        public CallTimeoutProperties(
+                Duration response,
+                Duration write,
+                Duration deadline,
+                @DefaultValue("10ms") Duration minAttemptTime,
+                @DefaultValue("true") Boolean propagateDeadline,
+                @DefaultValue("X-Request-Timeout") String deadlineHeader
+        ) {
+            this.response = response;
+            this.write = write;
+            this.deadline = deadline;
+            this.minAttemptTime = minAttemptTime;
+            this.propagateDeadline = propagateDeadline;
+            this.deadlineHeader = deadlineHeader;
+        }
+    }
+
+
 
 }
@@ -0,0 +1,142 @@
+package webclient.loadbalancer;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * an instance of a balanced server with its load, latency and health
+ */
+public class Endpoint {
+
+    private final String url;
+    private final int weight;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile boolean healthy = true;
+    private volatile boolean ejected;
+    private volatile long ejectedUntil;
+
+    private double ewma;
+    private long lastSample;
+
+    /**
+     * smooth weighted round robin state, guarded by the {@link LoadBalancer}
+     */
+    int currentWeight;
+
+    Endpoint(String url, int weight) {
+        this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        this.weight = weight;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return requests sent to this endpoint and not answered yet
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    /**
+     * @return false when the last health check failed or when the endpoint is ejected
+     */
+    public boolean isAvailable(long now) {
+        return healthy && !(ejected && now - ejectedUntil < 0);
+    }
+
+    /**
+     * @return the moving average latency in nanos
+     */
+    public synchronized double getLatency() {
+        return ewma;
+    }
+
+    /**
+     * @param base    url the request was built against
+     * @param request url of the request
+     * @return the url of the request on this endpoint, unchanged when it does not start with the base url
+     */
+    URI resolve(String base, URI request) {
+        String value = request.toString();
+        if (!value.startsWith(base)) {
+            return request;
+        }
+        return URI.create(url + value.substring(base.length()));
+    }
+
+    void start() {
+        outstanding.incrementAndGet();
+    }
+
+    void end() {
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * peak EWMA: the last latency counts at once when it is above the average, it is decayed otherwise
+     */
+    synchronized void recordLatency(long now, long latency, long decay) {
+        if (lastSample == 0 || latency > ewma) {
+            ewma = latency;
+        } else {
+            double weight = Math.exp(-(double) (now - lastSample) / decay);
+            ewma = ewma * weight + latency * (1 - weight);
+        }
+        lastSample = now;
+    }
+
+    /**
+     * cost of a new request in the LATENCY_EWMA strategy
+     */
+    double cost() {
+        return (getLatency() + 1) * (outstanding.get() + 1);
+    }
+
+    void onSuccess() {
+        consecutiveFailures.set(0);
+        ejected = false;
+    }
+
+    /**
+     * @return the failures in a row
+     */
+    int onFailure() {
+        return consecutiveFailures.incrementAndGet();
+    }
+
+    boolean isEjected(long now) {
+        return ejected && now - ejectedUntil < 0;
+    }
+
+    void eject(long until) {
+        consecutiveFailures.set(0);
+        ejectedUntil = until;
+        ejected = true;
+    }
+
+    /**
+     * @return true when the health changed
+     */
+    boolean setHealthy(boolean healthy) {
+        boolean changed = this.healthy != healthy;
+        this.healthy = healthy;
+        return changed;
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
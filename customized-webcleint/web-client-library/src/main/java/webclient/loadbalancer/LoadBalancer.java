@@ -0,0 +1,251 @@
+package webclient.loadbalancer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import webclient.config.WebClientProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * client side load balancing of a web client over several endpoints.
+ * a filter picks an endpoint for every exchange and rewrites the url of the request, the requests are
+ * built against the base url as usual. reactor netty keeps one connection pool per remote address,
+ * so every endpoint gets its own pool, sized by the pool properties of the client.
+ * an endpoint is skipped while its health check fails or while it is ejected after consecutive
+ * failures (5xx or io errors); when no endpoint is available every endpoint is used again
+ */
+@Slf4j
+public class LoadBalancer {
+
+    public static final String OUTSTANDING = "webclient.client.endpoint.outstanding";
+    public static final String AVAILABLE = "webclient.client.endpoint.available";
+    public static final String EJECTIONS = "webclient.client.endpoint.ejections";
+
+    /**
+     * index of the endpoint a request is sent to, in the order of the endpoints of the client, the strategy chooses when missing
+     */
+    public static final String ENDPOINT_ATTRIBUTE = LoadBalancer.class.getName() + ".endpoint";
+
+    private final String client;
+    private final String baseUrl;
+    private final List<Endpoint> endpoints;
+    private final WebClientProperties.DirectServerProperties.LoadBalancerProperties properties;
+    private final WebClient healthCheckClient;
+    private final MeterRegistry meterRegistry;
+
+    private Disposable healthChecks;
+
+    /**
+     * @param client
+     * @param baseUrl           url the requests are built against
+     * @param endpoints         nothing is balanced when null or empty
+     * @param properties
+     * @param healthCheckClient
+     * @param meterRegistry
+     */
+    public LoadBalancer(String client, String baseUrl, List<WebClientProperties.DirectServerProperties.EndpointProperties> endpoints,
+                        WebClientProperties.DirectServerProperties.LoadBalancerProperties properties,
+                        WebClient healthCheckClient, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.baseUrl = baseUrl != null && baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.properties = properties;
+        this.healthCheckClient = healthCheckClient;
+        this.meterRegistry = meterRegistry;
+
+        List<Endpoint> list = new ArrayList<>();
+        if (endpoints != null) {
+            for (WebClientProperties.DirectServerProperties.EndpointProperties endpoint : endpoints) {
+                list.add(new Endpoint(endpoint.getUrl(), endpoint.getWeight()));
+            }
+        }
+        this.endpoints = Collections.unmodifiableList(list);
+
+        for (Endpoint endpoint : this.endpoints) {
+            Tags tags = Tags.of("client", client, "endpoint", endpoint.getUrl());
+            Gauge.builder(OUTSTANDING, endpoint, Endpoint::getOutstanding).tags(tags).register(meterRegistry);
+            Gauge.builder(AVAILABLE, endpoint, e -> e.isAvailable(System.nanoTime()) ? 1 : 0).tags(tags).register(meterRegistry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return !endpoints.isEmpty();
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * starts the periodic health checks when enabled
+     */
+    public void start() {
+        WebClientProperties.DirectServerProperties.LoadBalancerProperties.HealthCheckProperties healthCheck = properties.getHealthCheck();
+        if (!isEnabled() || !healthCheck.getEnabled() || healthChecks != null) {
+            return;
+        }
+
+        healthChecks = Flux.interval(Duration.ZERO, healthCheck.getInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> Flux.fromIterable(endpoints).flatMap(this::check).then())
+                .subscribe();
+    }
+
+    public void dispose() {
+        if (healthChecks != null) {
+            healthChecks.dispose();
+        }
+    }
+
+    /**
+     * routes every exchange to an endpoint, to register before the filters that need the final url
+     */
+    public ExchangeFilterFunction filter() {
+        return (request, next) -> {
+            if (!isEnabled()) {
+                return next.exchange(request);
+            }
+
+            return Mono.defer(() -> {
+                final Endpoint endpoint = request.attribute(ENDPOINT_ATTRIBUTE)
+                        .map(index -> endpoints.get((Integer) index))
+                        .orElseGet(this::choose);
+                final ClientRequest routed = ClientRequest.from(request)
+                        .url(endpoint.resolve(baseUrl, request.url()))
+                        .build();
+                final AtomicBoolean done = new AtomicBoolean();
+                final long start = System.nanoTime();
+                endpoint.start();
+
+                return next.exchange(routed)
+                        .doOnSuccess(response -> complete(endpoint, start, done, response == null || response.rawStatusCode() < 500))
+                        .doOnError(throwable -> complete(endpoint, start, done, false))
+                        .doOnCancel(() -> {
+                            if (done.compareAndSet(false, true)) {
+                                endpoint.end();
+                            }
+                        });
+            });
+        };
+    }
+
+    Endpoint choose() {
+        final long now = System.nanoTime();
+        List<Endpoint> available = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.isAvailable(now)) {
+                available.add(endpoint);
+            }
+        }
+        if (available.isEmpty()) {
+            available = endpoints;
+        }
+        if (available.size() == 1) {
+            return available.get(0);
+        }
+
+        switch (properties.getStrategy()) {
+            case WEIGHTED_ROUND_ROBIN:
+                return weightedRoundRobin(available);
+            case LATENCY_EWMA:
+                return powerOfTwoChoices(available, Endpoint::cost);
+            default:
+                return powerOfTwoChoices(available, Endpoint::getOutstanding);
+        }
+    }
+
+    private static Endpoint powerOfTwoChoices(List<Endpoint> available, ToDoubleFunction<Endpoint> cost) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(available.size());
+        int second = random.nextInt(available.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint a = available.get(first);
+        Endpoint b = available.get(second);
+        return cost.applyAsDouble(a) <= cost.applyAsDouble(b) ? a : b;
+    }
+
+    /**
+     * smooth weighted round robin, the endpoints of a weight are interleaved instead of being picked in a row
+     */
+    private synchronized Endpoint weightedRoundRobin(List<Endpoint> available) {
+        int total = 0;
+        Endpoint best = null;
+        for (Endpoint endpoint : available) {
+            endpoint.currentWeight += endpoint.getWeight();
+            total += endpoint.getWeight();
+            if (best == null || endpoint.currentWeight > best.currentWeight) {
+                best = endpoint;
+            }
+        }
+        best.currentWeight -= total;
+        return best;
+    }
+
+    private void complete(Endpoint endpoint, long start, AtomicBoolean done, boolean success) {
+        if (!done.compareAndSet(false, true)) {
+            return;
+        }
+        final long now = System.nanoTime();
+        endpoint.end();
+        endpoint.recordLatency(now, now - start, properties.getEwmaDecay().toNanos());
+
+        if (success) {
+            endpoint.onSuccess();
+            return;
+        }
+
+        WebClientProperties.DirectServerProperties.LoadBalancerProperties.OutlierEjectionProperties outlierEjection = properties.getOutlierEjection();
+        if (outlierEjection.getEnabled()
+                && endpoint.onFailure() >= outlierEjection.getConsecutiveFailures()
+                && canEject(now, outlierEjection)) {
+            endpoint.eject(now + outlierEjection.getEjectionTime().toNanos());
+            Counter.builder(EJECTIONS)
+                    .tags("client", client, "endpoint", endpoint.getUrl())
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("Endpoint {} of {} ejected for {} after {} failures in a row", endpoint, client,
+                    outlierEjection.getEjectionTime(), outlierEjection.getConsecutiveFailures());
+        }
+    }
+
+    private boolean canEject(long now, WebClientProperties.DirectServerProperties.LoadBalancerProperties.OutlierEjectionProperties outlierEjection) {
+        int ejected = 0;
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.isEjected(now)) {
+                ejected++;
+            }
+        }
+        return ejected < endpoints.size() * outlierEjection.getMaxEjectionPercent() / 100;
+    }
+
+    private Mono<Void> check(Endpoint endpoint) {
+        WebClientProperties.DirectServerProperties.LoadBalancerProperties.HealthCheckProperties healthCheck = properties.getHealthCheck();
+        return healthCheckClient.get()
+                .uri(endpoint.getUrl() + healthCheck.getPath())
+                .exchangeToMono(response -> response.releaseBody().thenReturn(response.rawStatusCode() / 100 == 2))
+                .timeout(healthCheck.getTimeout())
+                .onErrorReturn(false)
+                .doOnNext(healthy -> {
+                    if (endpoint.setHealthy(healthy)) {
+                        log.warn("Endpoint {} of {} is {}", endpoint, client, healthy ? "healthy" : "unhealthy");
+                    }
+                })
+                .then();
+    }
+}
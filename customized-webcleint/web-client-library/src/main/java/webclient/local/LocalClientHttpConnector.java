@@ -0,0 +1,60 @@
+package webclient.local;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.http.server.reactive.HttpHandler;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * connects a web client to an {@link HttpHandler} of the same jvm.
+ * the request is handed to the handler as a server request whose body is the publisher written by the client,
+ * and the body written by the handler is the body of the client response: no socket, no http framing and
+ * no copy of the buffers. the handler runs on the thread sending the request
+ */
+@Slf4j
+public class LocalClientHttpConnector implements ClientHttpConnector {
+
+    private final Supplier<HttpHandler> handler;
+
+    /**
+     * @param handler called on the first request, so that the handler may depend on the web client
+     */
+    public LocalClientHttpConnector(Supplier<HttpHandler> handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public Mono<ClientHttpResponse> connect(HttpMethod method, URI uri, Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+        return Mono.defer(() -> {
+            final Sinks.Empty<Void> requestWritten = Sinks.empty();
+            final Sinks.Empty<Void> handled = Sinks.empty();
+            final LocalServerHttpResponse serverResponse = new LocalServerHttpResponse();
+
+            final LocalClientHttpRequest clientRequest = new LocalClientHttpRequest(method, uri, request -> {
+                if (log.isDebugEnabled()) {
+                    log.debug("Dispatching {} {} in memory", method, uri);
+                }
+                handler.get()
+                        .handle(new LocalServerHttpRequest(request), serverResponse)
+                        .subscribe(done -> {
+                        }, handled::tryEmitError, handled::tryEmitEmpty);
+                return Mono.empty();
+            });
+
+            requestCallback.apply(clientRequest)
+                    .subscribe(done -> {
+                    }, requestWritten::tryEmitError, requestWritten::tryEmitEmpty);
+
+            return Mono.when(requestWritten.asMono(), handled.asMono())
+                    .then(Mono.fromCallable(() -> new LocalClientHttpResponse(serverResponse)));
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package webclient.local;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.AbstractClientHttpRequest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.function.Function;
+
+/**
+ * client side of an in memory exchange, the body is kept as a publisher for the server request
+ */
+class LocalClientHttpRequest extends AbstractClientHttpRequest {
+
+    private final HttpMethod method;
+    private final URI uri;
+    private final Function<LocalClientHttpRequest, Mono<Void>> onWrite;
+    private Flux<DataBuffer> body = Flux.empty();
+
+    LocalClientHttpRequest(HttpMethod method, URI uri, Function<LocalClientHttpRequest, Mono<Void>> onWrite) {
+        this.method = method;
+        this.uri = uri;
+        this.onWrite = onWrite;
+    }
+
+    @Override
+    public HttpMethod getMethod() {
+        return method;
+    }
+
+    @Override
+    public URI getURI() {
+        return uri;
+    }
+
+    @Override
+    public DataBufferFactory bufferFactory() {
+        return DefaultDataBufferFactory.sharedInstance;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getNativeRequest() {
+        return (T) this;
+    }
+
+    Flux<DataBuffer> getBody() {
+        return body;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        return doCommit(() -> {
+            this.body = Flux.from(body);
+            return onWrite.apply(this);
+        });
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        return writeWith(Flux.from(body).concatMap(Flux::from));
+    }
+
+    @Override
+    public Mono<Void> setComplete() {
+        return writeWith(Flux.empty());
+    }
+
+    @Override
+    protected void applyHeaders() {
+    }
+
+    @Override
+    protected void applyCookies() {
+    }
+}
@@ -0,0 +1,53 @@
+package webclient.local;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Flux;
+
+/**
+ * client side of the response of an in memory exchange
+ */
+class LocalClientHttpResponse implements ClientHttpResponse {
+
+    private final int status;
+    private final HttpHeaders headers;
+    private final MultiValueMap<String, ResponseCookie> cookies;
+    private final Flux<DataBuffer> body;
+
+    LocalClientHttpResponse(LocalServerHttpResponse response) {
+        this.status = response.getRawStatusCode() == null ? HttpStatus.OK.value() : response.getRawStatusCode();
+        this.headers = HttpHeaders.readOnlyHttpHeaders(response.getHeaders());
+        this.cookies = new LinkedMultiValueMap<>(response.getCookies());
+        this.body = response.getBody();
+    }
+
+    @Override
+    public HttpStatus getStatusCode() {
+        return HttpStatus.valueOf(status);
+    }
+
+    @Override
+    public int getRawStatusCode() {
+        return status;
+    }
+
+    @Override
+    public MultiValueMap<String, ResponseCookie> getCookies() {
+        return cookies;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    @Override
+    public Flux<DataBuffer> getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,55 @@
+package webclient.local;
+
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import webclient.config.WebClientProperties;
+import webclient.metrics.WebClientMetrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * sends the requests of the paths marked local in memory and the others over the network.
+ * the filters of the web client run before this function, so logging, metrics and the retries
+ * of {@link webclient.application.CustomizedWebClient} apply to the local calls as well
+ */
+public class LocalExchangeFunction implements ExchangeFunction {
+
+    private final ExchangeFunction remote;
+    private final ExchangeFunction local;
+    private final Set<String> localPaths;
+
+    /**
+     * @param remote     sends over the network
+     * @param local      sends in memory, usually created with a {@link LocalClientHttpConnector}
+     * @param localPaths path keys sent in memory
+     */
+    public LocalExchangeFunction(ExchangeFunction remote, ExchangeFunction local, Set<String> localPaths) {
+        this.remote = remote;
+        this.local = local;
+        this.localPaths = localPaths;
+    }
+
+    /**
+     * @param paths paths of a client, may be null
+     * @return keys of the paths marked local
+     */
+    public static Set<String> localPaths(Map<String, WebClientProperties.PathProperties> paths) {
+        if (paths == null) {
+            return Collections.emptySet();
+        }
+        return paths.entrySet().stream()
+                .filter(path -> path.getValue().getLocal())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Mono<ClientResponse> exchange(ClientRequest request) {
+        return localPaths.contains(WebClientMetrics.pathKey(request)) ? local.exchange(request) : remote.exchange(request);
+    }
+}
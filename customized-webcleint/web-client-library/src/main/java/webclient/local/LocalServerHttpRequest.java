@@ -0,0 +1,50 @@
+package webclient.local;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.server.reactive.AbstractServerHttpRequest;
+import org.springframework.http.server.reactive.SslInfo;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import reactor.core.publisher.Flux;
+
+/**
+ * server side of an in memory exchange, made of the client request
+ */
+class LocalServerHttpRequest extends AbstractServerHttpRequest {
+
+    private final LocalClientHttpRequest request;
+
+    LocalServerHttpRequest(LocalClientHttpRequest request) {
+        super(request.getURI(), "", request.getHeaders());
+        this.request = request;
+    }
+
+    @Override
+    public String getMethodValue() {
+        return request.getMethod().name();
+    }
+
+    @Override
+    protected MultiValueMap<String, HttpCookie> initCookies() {
+        MultiValueMap<String, HttpCookie> cookies = new LinkedMultiValueMap<>();
+        request.getCookies().forEach(cookies::addAll);
+        return cookies;
+    }
+
+    @Override
+    protected SslInfo initSslInfo() {
+        return null;
+    }
+
+    @Override
+    public Flux<DataBuffer> getBody() {
+        return request.getBody();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getNativeRequest() {
+        return (T) request;
+    }
+}
@@ -0,0 +1,57 @@
+package webclient.local;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.AbstractServerHttpResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * server side of an in memory exchange.
+ * the body written by the handler is not consumed here, it is the body of the client response
+ */
+class LocalServerHttpResponse extends AbstractServerHttpResponse {
+
+    private Flux<DataBuffer> body = Flux.empty();
+
+    LocalServerHttpResponse() {
+        super(DefaultDataBufferFactory.sharedInstance);
+    }
+
+    Flux<DataBuffer> getBody() {
+        return body;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getNativeResponse() {
+        return (T) this;
+    }
+
+    @Override
+    protected Mono<Void> writeWithInternal(Publisher<? extends DataBuffer> body) {
+        this.body = Flux.from(body);
+        return Mono.empty();
+    }
+
+    @Override
+    protected Mono<Void> writeAndFlushWithInternal(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        this.body = Flux.from(body).concatMap(Flux::from);
+        return Mono.empty();
+    }
+
+    @Override
+    protected void applyStatusCode() {
+    }
+
+    @Override
+    protected void applyHeaders() {
+    }
+
+    @Override
+    protected void applyCookies() {
+        getCookies().values().forEach(cookies -> cookies.forEach(cookie -> getHeaders().add(HttpHeaders.SET_COOKIE, cookie.toString())));
+    }
+}
@@ -0,0 +1,176 @@
+package webclient.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * micrometer meters of the web clients.
+ * every meter is tagged by client, http method and the logical path key of
+ * {@link webclient.config.WebClientProperties.PathProperties}, never by the raw uri,
+ * so the number of time series stays bounded
+ */
+public class WebClientMetrics {
+
+    /**
+     * request attribute holding the path key of an exchange
+     */
+    public static final String PATH_KEY_ATTRIBUTE = WebClientMetrics.class.getName() + ".pathKey";
+
+    /**
+     * path key of the exchanges whose path is not declared in the properties
+     */
+    public static final String NONE = "none";
+
+    public static final String REQUESTS = "webclient.client.requests";
+    public static final String RESPONSES = "webclient.client.responses";
+    public static final String REQUEST_SIZE = "webclient.client.request.size";
+    public static final String RESPONSE_SIZE = "webclient.client.response.size";
+    public static final String RETRIES = "webclient.client.retries";
+
+    private final MeterRegistry registry;
+
+    public WebClientMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    public static Tags tags(String client, HttpMethod method, String pathKey) {
+        return Tags.of("client", client, "method", method.name(), "path", pathKey);
+    }
+
+    public static String pathKey(ClientRequest request) {
+        return request.attribute(PATH_KEY_ATTRIBUTE).map(Object::toString).orElse(NONE);
+    }
+
+    /**
+     * records the latency, the status class and the payload sizes of every exchange
+     *
+     * @param client
+     * @return
+     */
+    public ExchangeFilterFunction filter(String client) {
+        return (request, next) -> {
+            final Tags tags = tags(client, request.method(), pathKey(request));
+            final long start = System.nanoTime();
+
+            return next.exchange(measureRequestBody(request, tags))
+                    .map(response -> {
+                        record(tags, start, statusClass(response.rawStatusCode()));
+                        return measureResponseBody(response, tags);
+                    })
+                    .doOnError(throwable -> record(tags, start, "IO_ERROR"));
+        };
+    }
+
+    public void retry(String client, HttpMethod method, String pathKey) {
+        Counter.builder(RETRIES)
+                .tags(tags(client, method, pathKey))
+                .register(registry)
+                .increment();
+    }
+
+    private void record(Tags tags, long start, String status) {
+        Timer.builder(REQUESTS)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        Counter.builder(RESPONSES)
+                .tags(tags.and("status", status))
+                .register(registry)
+                .increment();
+    }
+
+    private ClientRequest measureRequestBody(ClientRequest request, Tags tags) {
+        HttpMethod method = request.method();
+        if (method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.DELETE) {
+            return request;
+        }
+
+        final DistributionSummary summary = size(REQUEST_SIZE, tags);
+        return ClientRequest.from(request)
+                .body((outputMessage, context) -> request.body().insert(outputMessage instanceof ZeroCopyHttpOutputMessage
+                        ? new MeasuredZeroCopyRequest(outputMessage, summary)
+                        : new MeasuredRequest(outputMessage, summary), context))
+                .build();
+    }
+
+    private static class MeasuredRequest extends ClientHttpRequestDecorator {
+
+        final DistributionSummary summary;
+
+        MeasuredRequest(ClientHttpRequest delegate, DistributionSummary summary) {
+            super(delegate);
+            this.summary = summary;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            final AtomicLong size = new AtomicLong();
+            return super.writeWith(Flux.from(body)
+                    .doOnNext(buffer -> size.addAndGet(buffer.readableByteCount()))
+                    .doOnComplete(() -> summary.record(size.get())));
+        }
+    }
+
+    /**
+     * keeps the zero copy file transfer of the connection, the file region is measured as a whole
+     */
+    private static class MeasuredZeroCopyRequest extends MeasuredRequest implements ZeroCopyHttpOutputMessage {
+
+        MeasuredZeroCopyRequest(ClientHttpRequest delegate, DistributionSummary summary) {
+            super(delegate, summary);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Path file, long position, long count) {
+            return ((ZeroCopyHttpOutputMessage) getDelegate()).writeWith(file, position, count)
+                    .doOnSuccess(done -> summary.record(count));
+        }
+    }
+
+    private ClientResponse measureResponseBody(ClientResponse response, Tags tags) {
+        final DistributionSummary summary = size(RESPONSE_SIZE, tags);
+        return response.mutate()
+                .body(body -> {
+                    final AtomicLong size = new AtomicLong();
+                    return body
+                            .doOnNext(buffer -> size.addAndGet(buffer.readableByteCount()))
+                            .doOnComplete(() -> summary.record(size.get()));
+                })
+                .build();
+    }
+
+    private DistributionSummary size(String name, Tags tags) {
+        return DistributionSummary.builder(name)
+                .baseUnit("bytes")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static String statusClass(int status) {
+        return (status / 100) + "xx";
+    }
+}
@@ -0,0 +1,212 @@
+package webclient.oauth2;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientProviderBuilder;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import webclient.application.CustomizedWebClient;
+import webclient.config.WebClientProperties;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * authorized clients of the apim registration, kept in memory and refreshed ahead of their expiry.
+ * a token expiring within the skew is fetched again in the background while the requests keep the current one,
+ * the requests wait only when there is no valid token. the fetches of a registration and principal are single flight
+ */
+@Slf4j
+public class ApimTokenManager implements ReactiveOAuth2AuthorizedClientManager, Disposable {
+
+    public static final String FETCH = "webclient.client.token.fetch";
+    public static final String EXPIRY = "webclient.client.token.expiry";
+
+    private final ReactiveOAuth2AuthorizedClientManager delegate;
+    private final WebClientProperties.ApimProperties.TokenProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Token> tokens = new ConcurrentHashMap<>();
+
+    /**
+     * @param delegate      fetches the tokens, it must fetch a new one when the current one expires within the skew
+     * @param properties
+     * @param meterRegistry
+     */
+    public ApimTokenManager(ReactiveOAuth2AuthorizedClientManager delegate,
+                            WebClientProperties.ApimProperties.TokenProperties properties, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return a manager whose client credentials and refresh token providers use the same skew
+     */
+    public static ApimTokenManager create(ReactiveClientRegistrationRepository clientRegistrations,
+                                          ReactiveOAuth2AuthorizedClientService authorizedClientService,
+                                          WebClientProperties.ApimProperties.TokenProperties properties, MeterRegistry meterRegistry) {
+        AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager delegate =
+                new AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager(clientRegistrations, authorizedClientService);
+        delegate.setAuthorizedClientProvider(ReactiveOAuth2AuthorizedClientProviderBuilder.builder()
+                .clientCredentials(provider -> provider.clockSkew(properties.getSkew()))
+                .refreshToken(provider -> provider.clockSkew(properties.getSkew()))
+                .build());
+        return new ApimTokenManager(delegate, properties, meterRegistry);
+    }
+
+    @Override
+    public Mono<OAuth2AuthorizedClient> authorize(OAuth2AuthorizeRequest authorizeRequest) {
+        final Token token = tokens.computeIfAbsent(authorizeRequest.getClientRegistrationId() + ':' + authorizeRequest.getPrincipal().getName(),
+                key -> register(new Token(authorizeRequest.getClientRegistrationId(), authorizeRequest.getPrincipal())));
+
+        return Mono.defer(() -> {
+            final OAuth2AuthorizedClient current = token.current;
+            final Instant now = Instant.now();
+            if (current == null || isExpired(current, now)) {
+                return fetch(token);
+            }
+            if (isDue(current, now) && !now.isBefore(token.nextAttempt)) {
+                refresh(token);
+            }
+            return Mono.just(current);
+        });
+    }
+
+    @Override
+    public void dispose() {
+        tokens.values().forEach(token -> {
+            Disposable scheduled = token.scheduled;
+            if (scheduled != null) {
+                scheduled.dispose();
+            }
+        });
+    }
+
+    private Mono<OAuth2AuthorizedClient> fetch(Token token) {
+        final Mono<OAuth2AuthorizedClient> inFlight = token.inFlight.get();
+        if (inFlight != null) {
+            return inFlight;
+        }
+
+        final AtomicReference<Mono<OAuth2AuthorizedClient>> created = new AtomicReference<>();
+        final Mono<OAuth2AuthorizedClient> fetch = Mono.defer(() -> {
+                    final long start = System.nanoTime();
+                    return delegate.authorize(OAuth2AuthorizeRequest.withClientRegistrationId(token.registrationId)
+                                    .principal(token.principal)
+                                    .build())
+                            .doOnSuccess(client -> record(token, start, client == null ? "empty" : "success"))
+                            .doOnError(throwable -> record(token, start, "failure"));
+                })
+                .doOnSuccess(client -> store(token, client))
+                .doOnError(throwable -> {
+                    token.nextAttempt = Instant.now().plus(properties.getRefreshRetryInterval());
+                    log.warn("Fetching the token of {} failed {}", token.registrationId, throwable.toString());
+                })
+                .doFinally(signal -> token.inFlight.compareAndSet(created.get(), null))
+                .cache();
+        created.set(fetch);
+
+        return token.inFlight.compareAndSet(null, fetch) ? fetch : fetch(token);
+    }
+
+    private void refresh(Token token) {
+        fetch(token).subscribe(client -> {
+        }, throwable -> {
+        });
+    }
+
+    private void store(Token token, OAuth2AuthorizedClient client) {
+        final Instant now = Instant.now();
+        final OAuth2AuthorizedClient previous = token.current;
+        if (client == null) {
+            token.nextAttempt = now.plus(properties.getRefreshRetryInterval());
+            return;
+        }
+
+        final boolean renewed = previous == null
+                || !previous.getAccessToken().getTokenValue().equals(client.getAccessToken().getTokenValue());
+        token.current = client;
+        token.nextAttempt = renewed ? Instant.MIN : now.plus(properties.getRefreshRetryInterval());
+
+        final Instant expiresAt = client.getAccessToken().getExpiresAt();
+        if (expiresAt == null) {
+            return;
+        }
+        Duration delay = Duration.between(now, expiresAt.minus(properties.getSkew()));
+        if (delay.isNegative() || !renewed) {
+            delay = properties.getRefreshRetryInterval();
+        }
+
+        final Disposable previousSchedule = token.scheduled;
+        if (previousSchedule != null) {
+            previousSchedule.dispose();
+        }
+        token.scheduled = Mono.delay(delay).subscribe(tick -> refresh(token));
+    }
+
+    private boolean isDue(OAuth2AuthorizedClient client, Instant now) {
+        final Instant expiresAt = client.getAccessToken().getExpiresAt();
+        return expiresAt != null && !now.isBefore(expiresAt.minus(properties.getSkew()));
+    }
+
+    private static boolean isExpired(OAuth2AuthorizedClient client, Instant now) {
+        final Instant expiresAt = client.getAccessToken().getExpiresAt();
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+
+    private Token register(Token token) {
+        Gauge.builder(EXPIRY, token, ApimTokenManager::secondsToExpiry)
+                .tags(Tags.of("client", CustomizedWebClient.APIM, "registration", token.registrationId))
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        return token;
+    }
+
+    private static double secondsToExpiry(Token token) {
+        final OAuth2AuthorizedClient current = token.current;
+        if (current == null || current.getAccessToken().getExpiresAt() == null) {
+            return Double.NaN;
+        }
+        return Duration.between(Instant.now(), current.getAccessToken().getExpiresAt()).toMillis() / 1000d;
+    }
+
+    private void record(Token token, long start, String outcome) {
+        Timer.builder(FETCH)
+                .tags(Tags.of("client", CustomizedWebClient.APIM, "registration", token.registrationId, "outcome", outcome))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * token of a registration and principal
+     */
+    private static class Token {
+
+        final String registrationId;
+        final Authentication principal;
+        final AtomicReference<Mono<OAuth2AuthorizedClient>> inFlight = new AtomicReference<>();
+        volatile OAuth2AuthorizedClient current;
+        volatile Instant nextAttempt = Instant.MIN;
+        volatile Disposable scheduled;
+
+        Token(String registrationId, Authentication principal) {
+            this.registrationId = registrationId;
+            this.principal = principal;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package webclient.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import webclient.config.WebClientProperties;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * limits the calls of a client in flight to a limit adjusted from the measured round trip time.
+ * AIMD: the limit grows by one after a fast call and shrinks by the backoff ratio after a drop
+ * (transient failure or a call slower than the latency threshold).
+ * GRADIENT: the limit follows the ratio between the long term and the current round trip time,
+ * plus a small headroom, and shrinks by the backoff ratio after a drop.
+ * the calls over the limit wait in a bounded queue, without parking a thread, or are rejected
+ * with a {@link ConcurrencyLimitExceededException}
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    public static final String LIMIT = "webclient.client.concurrency.limit";
+    public static final String IN_FLIGHT = "webclient.client.concurrency.inflight";
+    public static final String QUEUE = "webclient.client.concurrency.queue";
+    public static final String REJECTED = "webclient.client.concurrency.rejected";
+
+    private final String client;
+    private final WebClientProperties.ConcurrencyLimitProperties properties;
+    private final Counter rejected;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    private volatile double limit;
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimiter(String client, WebClientProperties.ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.properties = properties;
+        this.limit = properties.getInitialLimit();
+
+        Tags tags = Tags.of("client", client);
+        Gauge.builder(LIMIT, this, AdaptiveConcurrencyLimiter::getLimit).tags(tags).register(meterRegistry);
+        Gauge.builder(IN_FLIGHT, inFlight, AtomicInteger::get).tags(tags).register(meterRegistry);
+        Gauge.builder(QUEUE, queued, AtomicInteger::get).tags(tags).register(meterRegistry);
+        this.rejected = Counter.builder(REJECTED).tags(tags).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.getEnabled();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public <T> Mono<T> limit(Mono<T> call) {
+        return acquire()
+                .timeout(properties.getMaxQueueWait(), Mono.defer(() -> {
+                    rejected.increment();
+                    return Mono.error(new ConcurrencyLimitExceededException(client, getLimit()));
+                }))
+                .flatMap(start -> {
+                    // a cancel may follow the value, for instance from a hedge or a timeout, the permit is released once
+                    final AtomicBoolean released = new AtomicBoolean();
+                    return call
+                            .doOnSuccess(value -> release(start, false, released))
+                            .doOnError(throwable -> {
+                                if (throwable instanceof CircuitBreakerOpenException) {
+                                    // not sent, its latency says nothing of the server
+                                    release(-1, false, released);
+                                } else {
+                                    release(start, RetryPolicy.isTransient(throwable), released);
+                                }
+                            })
+                            .doOnCancel(() -> release(-1, false, released));
+                });
+    }
+
+    private void release(long start, boolean dropped, AtomicBoolean released) {
+        if (released.compareAndSet(false, true)) {
+            release(start, dropped);
+        }
+    }
+
+    /**
+     * @return the start time of the call once a permit is granted
+     */
+    private Mono<Long> acquire() {
+        return Mono.create(sink -> {
+            if (tryAcquire()) {
+                sink.success(System.nanoTime());
+                return;
+            }
+            if (queued.incrementAndGet() > properties.getMaxQueue()) {
+                queued.decrementAndGet();
+                rejected.increment();
+                sink.error(new ConcurrencyLimitExceededException(client, getLimit()));
+                return;
+            }
+
+            Waiter waiter = new Waiter(sink);
+            waiters.offer(waiter);
+            sink.onCancel(() -> {
+                if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.CANCELLED)) {
+                    queued.decrementAndGet();
+                    waiters.remove(waiter);
+                } else {
+                    // the permit was handed over while cancelling
+                    release(-1, false);
+                }
+            });
+            // a permit may have been released before the waiter was queued
+            drain();
+        });
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void release(long start, boolean dropped) {
+        if (start >= 0) {
+            onSample(System.nanoTime() - start, dropped);
+        }
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    private void drain() {
+        while (!waiters.isEmpty() && tryAcquire()) {
+            Waiter waiter = waiters.poll();
+            if (waiter == null || !waiter.state.compareAndSet(Waiter.WAITING, Waiter.GRANTED)) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+            queued.decrementAndGet();
+            waiter.sink.success(System.nanoTime());
+        }
+    }
+
+    private synchronized void onSample(long rtt, boolean dropped) {
+        double current = limit;
+        double next;
+
+        if (properties.getAlgorithm() == WebClientProperties.ConcurrencyLimitProperties.Algorithm.GRADIENT) {
+            longRtt = longRtt == 0 ? rtt : longRtt * 0.95 + rtt * 0.05;
+            if (dropped) {
+                next = current * properties.getBackoffRatio();
+            } else {
+                double gradient = Math.max(0.5, Math.min(1.0, longRtt / rtt));
+                double target = current * gradient + Math.sqrt(current);
+                next = current * (1 - properties.getSmoothing()) + target * properties.getSmoothing();
+            }
+        } else {
+            if (dropped || rtt > properties.getLatencyThreshold().toNanos()) {
+                next = current * properties.getBackoffRatio();
+            } else if (inFlight.get() * 2 >= current) {
+                next = current + 1;
+            } else {
+                next = current;
+            }
+        }
+
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), next));
+    }
+
+    private static final class Waiter {
+        private static final int WAITING = 0;
+        private static final int GRANTED = 1;
+        private static final int CANCELLED = 2;
+
+        private final MonoSink<Long> sink;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        private Waiter(MonoSink<Long> sink) {
+            this.sink = sink;
+        }
+    }
+}
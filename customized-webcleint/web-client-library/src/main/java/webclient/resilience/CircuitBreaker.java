@@ -0,0 +1,235 @@
+package webclient.resilience;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import webclient.config.WebClientProperties;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+/**
+ * count based circuit breaker.
+ * CLOSED: every call is permitted, the outcome of the last calls is kept in a sliding window
+ * and the breaker opens when the failure or the slow call rate reaches its threshold.
+ * OPEN: calls fail fast with a {@link CircuitBreakerOpenException} until the wait duration is over.
+ * HALF_OPEN: a limited number of probes is permitted, their rates decide if the breaker
+ * closes or opens again.
+ * a permission never parks the calling thread, the window is updated in a short synchronized section
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Getter
+    private final String name;
+    private final WebClientProperties.CircuitBreakerProperties properties;
+    private final BiConsumer<State, State> onTransition;
+    private final long slowCallDuration;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private volatile long openUntil;
+
+    private SlidingWindow window;
+
+    /**
+     * @param name
+     * @param properties
+     * @param onTransition called with the previous and the new state
+     */
+    public CircuitBreaker(String name, WebClientProperties.CircuitBreakerProperties properties, BiConsumer<State, State> onTransition) {
+        this.name = name;
+        this.properties = properties;
+        this.onTransition = onTransition;
+        this.slowCallDuration = properties.getSlowCallDurationThreshold().toNanos();
+        this.window = new SlidingWindow(properties.getSlidingWindowSize());
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public <T> Mono<T> decorate(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!tryAcquirePermission()) {
+                return Mono.error(new CircuitBreakerOpenException(name));
+            }
+
+            final long start = System.nanoTime();
+            return call
+                    .doOnSuccess(value -> onResult(System.nanoTime() - start, false))
+                    .doOnError(throwable -> onResult(System.nanoTime() - start, isFailure(throwable)))
+                    .doOnCancel(this::releasePermission);
+        });
+    }
+
+    /**
+     * a stream counts as answered at its first element or at its completion, the later errors are not recorded
+     */
+    public <T> Flux<T> decorate(Flux<T> call) {
+        return Flux.defer(() -> {
+            if (!tryAcquirePermission()) {
+                return Flux.error(new CircuitBreakerOpenException(name));
+            }
+
+            final long start = System.nanoTime();
+            final AtomicBoolean recorded = new AtomicBoolean();
+            return call
+                    .doOnNext(value -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            onResult(System.nanoTime() - start, false);
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            onResult(System.nanoTime() - start, false);
+                        }
+                    })
+                    .doOnError(throwable -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            onResult(System.nanoTime() - start, isFailure(throwable));
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            releasePermission();
+                        }
+                    });
+        });
+    }
+
+    boolean tryAcquirePermission() {
+        State current = state.get();
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openUntil < 0) {
+                return false;
+            }
+            transition(State.OPEN, State.HALF_OPEN);
+            current = state.get();
+        }
+        if (current == State.HALF_OPEN) {
+            int permits;
+            do {
+                permits = halfOpenPermits.get();
+                if (permits <= 0) {
+                    return false;
+                }
+            } while (!halfOpenPermits.compareAndSet(permits, permits - 1));
+        }
+        return true;
+    }
+
+    void onResult(long durationNanos, boolean failure) {
+        final boolean slow = durationNanos >= slowCallDuration;
+        final State current = state.get();
+
+        if (current == State.OPEN) {
+            return;
+        }
+
+        State next = null;
+        synchronized (this) {
+            if (state.get() != current) {
+                return;
+            }
+            window.record(failure, slow);
+
+            int minimumCalls = current == State.HALF_OPEN
+                    ? properties.getPermittedCallsInHalfOpenState()
+                    : properties.getMinimumNumberOfCalls();
+            if (window.getCalls() >= minimumCalls) {
+                if (window.failureRate() >= properties.getFailureRateThreshold()
+                        || window.slowCallRate() >= properties.getSlowCallRateThreshold()) {
+                    next = State.OPEN;
+                } else if (current == State.HALF_OPEN) {
+                    next = State.CLOSED;
+                }
+            }
+        }
+
+        if (next != null) {
+            transition(current, next);
+        }
+    }
+
+    void releasePermission() {
+        if (state.get() == State.HALF_OPEN) {
+            halfOpenPermits.incrementAndGet();
+        }
+    }
+
+    private void transition(State from, State to) {
+        synchronized (this) {
+            if (!state.compareAndSet(from, to)) {
+                return;
+            }
+            if (to == State.OPEN) {
+                openUntil = System.nanoTime() + properties.getWaitDurationInOpenState().toNanos();
+            } else if (to == State.HALF_OPEN) {
+                halfOpenPermits.set(properties.getPermittedCallsInHalfOpenState());
+                window = new SlidingWindow(properties.getPermittedCallsInHalfOpenState());
+            } else {
+                window = new SlidingWindow(properties.getSlidingWindowSize());
+            }
+        }
+
+        log.warn("Circuit breaker {} changed from {} to {}", name, from, to);
+        onTransition.accept(from, to);
+    }
+
+    /**
+     * server errors, too many requests and io errors are failures, the other client errors are not
+     */
+    static boolean isFailure(Throwable throwable) {
+        if (throwable instanceof WebClientResponseException) {
+            int status = ((WebClientResponseException) throwable).getRawStatusCode();
+            return status >= 500 || status == 429;
+        }
+        return true;
+    }
+
+    private static final class SlidingWindow {
+        private final boolean[] failures;
+        private final boolean[] slows;
+        private int index;
+        @Getter
+        private int calls;
+        private int failureCount;
+        private int slowCount;
+
+        private SlidingWindow(int size) {
+            this.failures = new boolean[size];
+            this.slows = new boolean[size];
+        }
+
+        private void record(boolean failure, boolean slow) {
+            if (calls == failures.length) {
+                failureCount -= failures[index] ? 1 : 0;
+                slowCount -= slows[index] ? 1 : 0;
+            } else {
+                calls++;
+            }
+            failures[index] = failure;
+            slows[index] = slow;
+            failureCount += failure ? 1 : 0;
+            slowCount += slow ? 1 : 0;
+            index = (index + 1) % failures.length;
+        }
+
+        private float failureRate() {
+            return failureCount * 100f / calls;
+        }
+
+        private float slowCallRate() {
+            return slowCount * 100f / calls;
+        }
+    }
+}
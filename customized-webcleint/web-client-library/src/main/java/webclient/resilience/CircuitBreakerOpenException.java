@@ -0,0 +1,17 @@
+package webclient.resilience;
+
+import lombok.Getter;
+
+/**
+ * thrown without calling the server while the circuit breaker of a path is open
+ */
+@Getter
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    private final String circuitBreaker;
+
+    public CircuitBreakerOpenException(String circuitBreaker) {
+        super("Circuit breaker " + circuitBreaker + " is open, the call is not permitted");
+        this.circuitBreaker = circuitBreaker;
+    }
+}
@@ -0,0 +1,85 @@
+package webclient.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.Getter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import webclient.config.WebClientProperties;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * the circuit breakers of a client, one per path key.
+ * the state of every breaker is published as a gauge, its transitions as a counter and as events
+ */
+public class CircuitBreakerRegistry {
+
+    public static final String STATE = "webclient.client.circuitbreaker.state";
+    public static final String TRANSITIONS = "webclient.client.circuitbreaker.transitions";
+
+    private final String client;
+    private final WebClientProperties.CircuitBreakerProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Sinks.Many<Transition> transitions = Sinks.many().multicast().directBestEffort();
+
+    public CircuitBreakerRegistry(String client, WebClientProperties.CircuitBreakerProperties properties, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isEnabled() {
+        return properties != null && properties.getEnabled();
+    }
+
+    public CircuitBreaker get(String pathKey) {
+        return circuitBreakers.computeIfAbsent(pathKey, this::create);
+    }
+
+    /**
+     * @return the transitions of every breaker of the client, hot
+     */
+    public Flux<Transition> transitions() {
+        return transitions.asFlux();
+    }
+
+    private CircuitBreaker create(String pathKey) {
+        final Tags tags = Tags.of("client", client, "path", pathKey);
+        final CircuitBreaker circuitBreaker = new CircuitBreaker(client + ':' + pathKey, properties, (from, to) -> {
+            Counter.builder(TRANSITIONS)
+                    .tags(tags.and("from", from.name(), "to", to.name()))
+                    .register(meterRegistry)
+                    .increment();
+            synchronized (transitions) {
+                transitions.tryEmitNext(new Transition(client, pathKey, from, to));
+            }
+        });
+
+        Gauge.builder(STATE, circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("0 closed, 1 open, 2 half open")
+                .tags(tags)
+                .register(meterRegistry);
+
+        return circuitBreaker;
+    }
+
+    @Getter
+    public static final class Transition {
+        private final String client;
+        private final String pathKey;
+        private final CircuitBreaker.State from;
+        private final CircuitBreaker.State to;
+
+        private Transition(String client, String pathKey, CircuitBreaker.State from, CircuitBreaker.State to) {
+            this.client = client;
+            this.pathKey = pathKey;
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
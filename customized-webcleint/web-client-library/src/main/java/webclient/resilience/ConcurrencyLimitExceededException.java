@@ -0,0 +1,17 @@
+package webclient.resilience;
+
+import lombok.Getter;
+
+/**
+ * thrown without calling the server when the concurrency limit of a client is reached and its queue is full
+ */
+@Getter
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    private final String client;
+
+    public ConcurrencyLimitExceededException(String client, int limit) {
+        super("Concurrency limit " + limit + " of " + client + " reached, the call is rejected");
+        this.client = client;
+    }
+}
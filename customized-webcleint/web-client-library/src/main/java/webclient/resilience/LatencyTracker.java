@@ -0,0 +1,42 @@
+package webclient.resilience;
+
+import java.util.Arrays;
+
+/**
+ * latencies of the last calls of a path, the percentile is computed again
+ * every few samples instead of on every call
+ */
+class LatencyTracker {
+
+    private static final int SIZE = 256;
+    private static final int REFRESH_EVERY = 32;
+
+    private final long[] samples = new long[SIZE];
+    private int index;
+    private int count;
+    private int sinceRefresh;
+    private long percentile = -1;
+
+    synchronized void record(long latencyNanos) {
+        samples[index] = latencyNanos;
+        index = (index + 1) % SIZE;
+        count = Math.min(count + 1, SIZE);
+        sinceRefresh++;
+    }
+
+    /**
+     * @return the observed percentile in nanos, -1 while there are not enough samples
+     */
+    synchronized long percentile(double quantile) {
+        if (count < REFRESH_EVERY) {
+            return -1;
+        }
+        if (percentile < 0 || sinceRefresh >= REFRESH_EVERY) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            percentile = sorted[(int) Math.min(count - 1, Math.ceil(quantile * count) - 1)];
+            sinceRefresh = 0;
+        }
+        return percentile;
+    }
+}
@@ -0,0 +1,17 @@
+package webclient.resilience;
+
+import lombok.Getter;
+
+/**
+ * thrown without calling the server when no permit of a rate limiter is available in time
+ */
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    private final String name;
+
+    public RateLimitExceededException(String name) {
+        super("Rate limit of " + name + " reached, the call is rejected");
+        this.name = name;
+    }
+}
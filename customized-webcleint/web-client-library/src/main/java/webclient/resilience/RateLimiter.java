@@ -0,0 +1,94 @@
+package webclient.resilience;
+
+import webclient.config.WebClientProperties;
+
+import java.time.Duration;
+
+/**
+ * token bucket refilled continuously at limitForPeriod / period, holding at most burst permits.
+ * a permit is reserved ahead of time: when the bucket is empty the caller gets the delay after which
+ * its permit is available and the bucket goes negative, so the following callers wait longer.
+ * nothing blocks, the caller delays the call on a timer
+ */
+public class RateLimiter {
+
+    /**
+     * returned by {@link #reserve()} when the call must be rejected
+     */
+    public static final long REJECTED = -1;
+
+    private final String name;
+    private final WebClientProperties.RateLimitProperties properties;
+    private final double permitsPerNano;
+    private final double capacity;
+
+    private double permits;
+    private long lastRefill;
+
+    public RateLimiter(String name, WebClientProperties.RateLimitProperties properties) {
+        this.name = name;
+        this.properties = properties;
+        this.permitsPerNano = (double) properties.getLimitForPeriod() / properties.getPeriod().toNanos();
+        this.capacity = properties.getBurst();
+        this.permits = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled() {
+        return properties.getEnabled();
+    }
+
+    /**
+     * @return the nanos to wait before sending the call, 0 when a permit is available now,
+     * {@link #REJECTED} when failing fast or when the wait would exceed the max wait
+     */
+    public synchronized long reserve() {
+        refill(System.nanoTime());
+        if (permits >= 1) {
+            permits -= 1;
+            return 0;
+        }
+        if (properties.getMode() == WebClientProperties.RateLimitProperties.Mode.FAIL_FAST) {
+            return REJECTED;
+        }
+
+        long wait = (long) Math.ceil((1 - permits) / permitsPerNano);
+        if (wait > properties.getMaxWait().toNanos()) {
+            return REJECTED;
+        }
+        permits -= 1;
+        return wait;
+    }
+
+    /**
+     * gives back a reserved permit whose call was not sent
+     */
+    public synchronized void release() {
+        permits = Math.min(capacity, permits + 1);
+    }
+
+    /**
+     * empties the bucket after the server answered 429, for the Retry-After duration when known
+     *
+     * @param retryAfter null when the server did not send one
+     */
+    public synchronized void throttle(Duration retryAfter) {
+        refill(System.nanoTime());
+        double debt = retryAfter == null ? 0 : retryAfter.toNanos() * permitsPerNano;
+        permits = Math.min(permits, -debt);
+    }
+
+    public synchronized double getAvailablePermits() {
+        refill(System.nanoTime());
+        return permits;
+    }
+
+    private void refill(long now) {
+        permits = Math.min(capacity, permits + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,114 @@
+package webclient.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import webclient.application.WebClientCall;
+import webclient.config.WebClientProperties;
+import webclient.metrics.WebClientMetrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * the rate limiters of a client: one for the whole client and one per path key, each optional.
+ * a call takes a permit of both, waits for the later one and gives both back when it is rejected or cancelled before being sent.
+ * a 429 of the server empties the buckets of the call until its Retry-After has elapsed
+ */
+public class RateLimiterRegistry {
+
+    public static final String RATE_LIMIT = "webclient.client.ratelimit";
+
+    private final String client;
+    private final RateLimiter clientLimiter;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RateLimiter> pathLimiters = new ConcurrentHashMap<>();
+
+    public RateLimiterRegistry(String client, WebClientProperties.RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.clientLimiter = properties != null && properties.getEnabled() ? new RateLimiter(client, properties) : null;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isEnabled(WebClientCall call) {
+        return clientLimiter != null || pathProperties(call) != null;
+    }
+
+    public <R> Mono<R> limit(WebClientCall call, Mono<R> response) {
+        final WebClientProperties.RateLimitProperties pathProperties = pathProperties(call);
+        final RateLimiter pathLimiter = pathProperties == null ? null
+                : pathLimiters.computeIfAbsent(call.getPathKey(), pathKey -> new RateLimiter(client + ':' + pathKey, pathProperties));
+
+        return Mono.defer(() -> {
+            long wait = 0;
+            if (pathLimiter != null) {
+                wait = pathLimiter.reserve();
+                if (wait == RateLimiter.REJECTED) {
+                    return reject(call, pathLimiter);
+                }
+            }
+            if (clientLimiter != null) {
+                long clientWait = clientLimiter.reserve();
+                if (clientWait == RateLimiter.REJECTED) {
+                    release(pathLimiter);
+                    return reject(call, clientLimiter);
+                }
+                wait = Math.max(wait, clientWait);
+            }
+
+            count(call, wait == 0 ? "permitted" : "delayed");
+            final Mono<R> throttled = response.doOnError(throwable -> {
+                if (throwable instanceof WebClientResponseException
+                        && ((WebClientResponseException) throwable).getRawStatusCode() == 429) {
+                    Duration retryAfter = RetryPolicy.retryAfter(throwable);
+                    throttle(pathLimiter, retryAfter);
+                    throttle(clientLimiter, retryAfter);
+                }
+            });
+            if (wait == 0) {
+                return throttled;
+            }
+            return Mono.delay(Duration.ofNanos(wait))
+                    .doOnCancel(() -> {
+                        release(pathLimiter);
+                        release(clientLimiter);
+                    })
+                    .then(throttled);
+        });
+    }
+
+    private static WebClientProperties.RateLimitProperties pathProperties(WebClientCall call) {
+        if (call.getPathProperties() == null
+                || call.getPathProperties().getRateLimit() == null
+                || !call.getPathProperties().getRateLimit().getEnabled()) {
+            return null;
+        }
+        return call.getPathProperties().getRateLimit();
+    }
+
+    private <R> Mono<R> reject(WebClientCall call, RateLimiter limiter) {
+        count(call, "rejected");
+        return Mono.error(new RateLimitExceededException(limiter.getName()));
+    }
+
+    private static void release(RateLimiter limiter) {
+        if (limiter != null) {
+            limiter.release();
+        }
+    }
+
+    private static void throttle(RateLimiter limiter, Duration retryAfter) {
+        if (limiter != null) {
+            limiter.throttle(retryAfter);
+        }
+    }
+
+    private void count(WebClientCall call, String result) {
+        Counter.builder(RATE_LIMIT)
+                .tags(WebClientMetrics.tags(call.getClient(), call.getMethod(), call.getPathKey()).and("result", result))
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,106 @@
+package webclient.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpMethod;
+import reactor.core.publisher.Mono;
+import webclient.application.WebClientCall;
+import webclient.config.WebClientProperties;
+import webclient.metrics.WebClientMetrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * hedging of idempotent GET calls: when the first attempt has not answered after the hedge delay,
+ * an identical second attempt is sent, the first response wins and the other one is cancelled.
+ * the delay is fixed or the observed percentile of the latency of the path.
+ * a failed hedge never fails the call, the first attempt still decides
+ */
+public class RequestHedger {
+
+    public static final String HEDGES = "webclient.client.hedges";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, PathState> paths = new ConcurrentHashMap<>();
+
+    public RequestHedger(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public static boolean isEnabled(WebClientCall call) {
+        return call.getMethod() == HttpMethod.GET
+                && call.getPathProperties() != null
+                && call.getPathProperties().getHedge() != null
+                && call.getPathProperties().getHedge().getEnabled();
+    }
+
+    /**
+     * @param call
+     * @param attempt cold Mono, every subscription sends a request
+     * @param <T>
+     * @return
+     */
+    public <T> Mono<T> hedge(WebClientCall call, Mono<T> attempt) {
+        final WebClientProperties.PathProperties.HedgeProperties hedgeProperties = call.getPathProperties().getHedge();
+        final PathState state = paths.computeIfAbsent(call.getClient() + ':' + call.getPathKey(), key -> new PathState());
+
+        return Mono.defer(() -> {
+            final long start = System.nanoTime();
+            final Mono<T> primary = attempt.doOnSuccess(value -> state.latencies.record(System.nanoTime() - start));
+
+            final Mono<T> hedged = Mono.delay(delay(hedgeProperties, state))
+                    .flatMap(tick -> {
+                        if (!state.tryAcquire(hedgeProperties.getMaxOutstanding())) {
+                            return Mono.<T>never();
+                        }
+                        count(call, "sent");
+                        return attempt
+                                .doOnNext(value -> count(call, "won"))
+                                .doFinally(signal -> state.release());
+                    })
+                    .onErrorResume(throwable -> Mono.never());
+
+            return Mono.firstWithSignal(primary, hedged);
+        });
+    }
+
+    private Duration delay(WebClientProperties.PathProperties.HedgeProperties hedgeProperties, PathState state) {
+        if (hedgeProperties.getPercentile() != null) {
+            long observed = state.latencies.percentile(hedgeProperties.getPercentile());
+            if (observed >= 0) {
+                return Duration.ofNanos(observed);
+            }
+        }
+        return hedgeProperties.getDelay();
+    }
+
+    private void count(WebClientCall call, String result) {
+        Counter.builder(HEDGES)
+                .tags(WebClientMetrics.tags(call.getClient(), call.getMethod(), call.getPathKey()).and("result", result))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static final class PathState {
+        private final LatencyTracker latencies = new LatencyTracker();
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private boolean tryAcquire(int maxOutstanding) {
+            int current;
+            do {
+                current = outstanding.get();
+                if (current >= maxOutstanding) {
+                    return false;
+                }
+            } while (!outstanding.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void release() {
+            outstanding.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package webclient.resilience;
+
+import webclient.config.WebClientProperties;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * token bucket of the retries of a client, lock free.
+ * tokens are stored in thousandths so a deposit can be a fraction of a retry
+ */
+public class RetryBudget {
+
+    private static final long ONE_TOKEN = 1000;
+
+    private final boolean enabled;
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    public RetryBudget(WebClientProperties.RetryConfigProperties.BudgetProperties budgetProperties) {
+        this.enabled = budgetProperties.getEnabled();
+        this.deposit = Math.round(budgetProperties.getRatio() * ONE_TOKEN);
+        this.capacity = budgetProperties.getMaxTokens() * ONE_TOKEN;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    /**
+     * called for every successful call
+     */
+    public void deposit() {
+        if (!enabled) {
+            return;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current >= capacity) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(capacity, current + deposit)));
+    }
+
+    /**
+     * @return false when the budget does not allow one more retry
+     */
+    public boolean tryWithdraw() {
+        if (!enabled) {
+            return true;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current < ONE_TOKEN) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - ONE_TOKEN));
+        return true;
+    }
+
+    public double getTokens() {
+        return balance.get() / (double) ONE_TOKEN;
+    }
+}
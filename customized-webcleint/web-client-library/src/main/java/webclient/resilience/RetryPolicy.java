@@ -0,0 +1,175 @@
+package webclient.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.codec.CodecException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import webclient.config.WebClientProperties;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * retries of a client.
+ * only connect errors, timeouts, server errors and 429 are retried. a POST is retried
+ * only when the request did not reach the server, unless non idempotent retries are allowed.
+ * the backoff is exponential with jitter, a Retry-After header is honored, and every retry
+ * takes a token of the {@link RetryBudget} shared by the client
+ */
+@Slf4j
+public class RetryPolicy {
+
+    private final WebClientProperties.RetryConfigProperties properties;
+    private final RetryBudget budget;
+
+    public RetryPolicy(WebClientProperties.RetryConfigProperties properties) {
+        this.properties = properties;
+        this.budget = new RetryBudget(properties.getBudget());
+    }
+
+    public RetryBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * @param method  method of the retried call, null when unknown
+     * @param onRetry called before every retry
+     * @return
+     */
+    public Retry retry(HttpMethod method, Runnable onRetry) {
+        return Retry.from(signals -> {
+            final long[] previousDelay = {properties.getMinBackoff().toMillis()};
+
+            return signals.concatMap(signal -> {
+                final Throwable failure = signal.failure();
+                final long attempt = signal.totalRetries();
+
+                if (attempt >= properties.getMaxAttempts() || !isRetryable(method, failure)) {
+                    return Mono.error(failure);
+                }
+
+                Duration delay = backoff(attempt, previousDelay);
+                Duration retryAfter = retryAfter(failure);
+                if (retryAfter != null) {
+                    if (retryAfter.compareTo(properties.getMaxBackoff()) > 0) {
+                        return Mono.error(failure);
+                    }
+                    delay = retryAfter.compareTo(delay) > 0 ? retryAfter : delay;
+                }
+
+                if (!budget.tryWithdraw()) {
+                    log.warn("Retry budget exhausted, not retrying {}", failure.getLocalizedMessage());
+                    return Mono.error(failure);
+                }
+
+                onRetry.run();
+                if (log.isInfoEnabled()) {
+                    log.info("Error occured {}, retrying in {} ms (attempts {})", failure.getLocalizedMessage(), delay.toMillis(), attempt + 1);
+                }
+                return Mono.delay(delay).thenReturn(attempt);
+            });
+        });
+    }
+
+    boolean isRetryable(HttpMethod method, Throwable failure) {
+        if (method == HttpMethod.POST || method == HttpMethod.PATCH) {
+            return isNotSent(failure) || (properties.getRetryNonIdempotent() && isTransient(failure));
+        }
+        return isTransient(failure);
+    }
+
+    /**
+     * @return true for the failures worth a retry: server errors, too many requests, io errors and timeouts
+     */
+    public static boolean isTransient(Throwable failure) {
+        if (failure instanceof CircuitBreakerOpenException || failure instanceof CodecException) {
+            return false;
+        }
+        if (failure instanceof WebClientResponseException) {
+            int status = ((WebClientResponseException) failure).getRawStatusCode();
+            return status == 429 || (status >= 500 && status != 501 && status != 505);
+        }
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException
+                    || cause instanceof TimeoutException
+                    || cause instanceof io.netty.handler.timeout.TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true when the connection could not be opened, the request never reached the server
+     */
+    public static boolean isNotSent(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Duration backoff(long attempt, long[] previousDelay) {
+        final long min = properties.getMinBackoff().toMillis();
+        final long max = properties.getMaxBackoff().toMillis();
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        long delay;
+        switch (properties.getJitter()) {
+            case DECORRELATED:
+                delay = Math.min(max, random.nextLong(min, Math.max(min, previousDelay[0] * 3) + 1));
+                break;
+            case FULL:
+                delay = random.nextLong(exponential(attempt, min, max) + 1);
+                break;
+            default:
+                delay = exponential(attempt, min, max);
+        }
+        previousDelay[0] = delay;
+        return Duration.ofMillis(delay);
+    }
+
+    private static long exponential(long attempt, long min, long max) {
+        if (min <= 0) {
+            return 0;
+        }
+        if (attempt >= Long.numberOfLeadingZeros(min) - 1) {
+            return max;
+        }
+        return Math.min(max, min << attempt);
+    }
+
+    static Duration retryAfter(Throwable failure) {
+        if (!(failure instanceof WebClientResponseException)) {
+            return null;
+        }
+        HttpHeaders headers = ((WebClientResponseException) failure).getHeaders();
+        String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null) {
+            return null;
+        }
+
+        try {
+            return Duration.ofSeconds(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                Duration untilDate = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return untilDate.isNegative() ? Duration.ZERO : untilDate;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package webclient.timeout;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.http.client.HttpClientRequest;
+import webclient.config.WebClientProperties;
+import webclient.metrics.WebClientMetrics;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * timeouts of the calls of a client.
+ * the response and write timeouts are set on the connection of each attempt, the pending acquire timeout of a path
+ * bounds the wait for that connection. the deadline of a call is held by the reactor context, so that it covers
+ * all the attempts: an attempt is not started when too little remains, and the remaining time is sent to the server
+ */
+public class CallTimeouts {
+
+    /**
+     * key of the reactor context holding the deadline of a call, in {@link System#nanoTime()}.
+     * a caller can put its own deadline there, the earlier of the two applies
+     */
+    public static final String DEADLINE = CallTimeouts.class.getName() + ".deadline";
+
+    public static final String EXCEEDED = "webclient.client.deadline.exceeded";
+
+    private static final String WRITE_TIMEOUT = "webclient.writeTimeout";
+
+    private final String client;
+    private final WebClientProperties.CallTimeoutProperties properties;
+    private final Map<String, WebClientProperties.PathProperties> paths;
+    private final MeterRegistry registry;
+
+    /**
+     * @param client
+     * @param properties null when the client has no timeout
+     * @param paths
+     * @param registry
+     */
+    public CallTimeouts(String client, @Nullable WebClientProperties.CallTimeoutProperties properties,
+                        @Nullable Map<String, WebClientProperties.PathProperties> paths, MeterRegistry registry) {
+        this.client = client;
+        this.properties = properties;
+        this.paths = paths == null ? Collections.emptyMap() : paths;
+        this.registry = registry;
+    }
+
+    /**
+     * @return the deadline of a call of the path, null when it has none
+     */
+    @Nullable
+    public Duration deadline(@Nullable WebClientProperties.PathProperties pathProperties) {
+        if (pathProperties != null && pathProperties.getTimeout().getDeadline() != null) {
+            return pathProperties.getTimeout().getDeadline();
+        }
+        return properties == null ? null : properties.getDeadline();
+    }
+
+    /**
+     * @param response the call, its retries included
+     * @param deadline
+     * @param method
+     * @param pathKey
+     * @return the call failing with a {@link DeadlineExceededException} once its deadline is reached
+     */
+    public <R> Mono<R> withDeadline(Mono<R> response, Duration deadline, HttpMethod method, String pathKey) {
+        return Mono.deferContextual(context -> {
+            final long now = System.nanoTime();
+            final long end = Math.min(now + deadline.toNanos(), context.getOrDefault(DEADLINE, Long.MAX_VALUE));
+
+            return response
+                    .timeout(Duration.ofNanos(Math.max(0, end - now)), Mono.error(() -> new DeadlineExceededException(deadline)))
+                    .doOnError(DeadlineExceededException.class, e -> Counter.builder(EXCEEDED)
+                            .tags(WebClientMetrics.tags(client, method, pathKey))
+                            .register(registry)
+                            .increment())
+                    .contextWrite(ctx -> ctx.put(DEADLINE, end));
+        });
+    }
+
+    /**
+     * to register last, so that the timeouts apply to each attempt and are measured by the other filters
+     */
+    public ExchangeFilterFunction filter() {
+        return (request, next) -> Mono.deferContextual(context -> {
+            final WebClientProperties.PathProperties.TimeoutProperties path = path(request);
+            final Duration response = path != null && path.getResponse() != null ? path.getResponse()
+                    : properties == null ? null : properties.getResponse();
+            final Duration write = path != null && path.getWrite() != null ? path.getWrite()
+                    : properties == null ? null : properties.getWrite();
+
+            Duration remaining = null;
+            if (context.hasKey(DEADLINE)) {
+                remaining = Duration.ofNanos(context.<Long>get(DEADLINE) - System.nanoTime());
+                final Duration minAttemptTime = properties == null ? Duration.ZERO : properties.getMinAttemptTime();
+                if (remaining.compareTo(minAttemptTime) < 0) {
+                    return Mono.error(new DeadlineExceededException(remaining.isNegative() ? Duration.ZERO : remaining));
+                }
+            }
+
+            if (response == null && write == null && remaining == null && (path == null || path.getPendingAcquire() == null)) {
+                return next.exchange(request);
+            }
+
+            final Duration attemptTimeout = remaining == null || (response != null && response.compareTo(remaining) < 0)
+                    ? response : remaining;
+            final AtomicBoolean acquired = new AtomicBoolean();
+
+            ClientRequest.Builder builder = ClientRequest.from(request)
+                    .httpRequest(httpRequest -> {
+                        acquired.set(true);
+                        final Object nativeRequest = httpRequest.getNativeRequest();
+                        if (attemptTimeout != null && nativeRequest instanceof HttpClientRequest) {
+                            ((HttpClientRequest) nativeRequest).responseTimeout(attemptTimeout);
+                        }
+                        if (write != null && nativeRequest instanceof Connection) {
+                            ((Connection) nativeRequest).addHandlerLast(WRITE_TIMEOUT,
+                                    new WriteTimeoutHandler(write.toMillis(), TimeUnit.MILLISECONDS));
+                        }
+                    });
+            if (remaining != null && properties != null && properties.getPropagateDeadline()) {
+                final String header = properties.getDeadlineHeader();
+                final long millis = remaining.toMillis();
+                builder = builder.headers(headers -> headers.set(header, Long.toString(millis)));
+            }
+
+            Mono<ClientResponse> exchange = next.exchange(builder.build());
+            if (path != null && path.getPendingAcquire() != null) {
+                final Duration pendingAcquire = path.getPendingAcquire();
+                exchange = exchange.timeout(Mono.delay(pendingAcquire).flatMap(tick -> acquired.get() ? Mono.never() : Mono.just(tick)),
+                        Mono.error(() -> new TimeoutException("No connection acquired within " + pendingAcquire.toMillis() + " ms")));
+            }
+            return exchange;
+        });
+    }
+
+    @Nullable
+    private WebClientProperties.PathProperties.TimeoutProperties path(ClientRequest request) {
+        final WebClientProperties.PathProperties pathProperties = paths.get(WebClientMetrics.pathKey(request));
+        return pathProperties == null ? null : pathProperties.getTimeout();
+    }
+}
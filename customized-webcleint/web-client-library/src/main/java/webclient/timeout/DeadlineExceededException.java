@@ -0,0 +1,20 @@
+package webclient.timeout;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * thrown when the deadline of a call is reached, or when too little of it remains to start an attempt.
+ * it is not retried
+ */
+@Getter
+public class DeadlineExceededException extends RuntimeException {
+
+    private final Duration deadline;
+
+    public DeadlineExceededException(Duration deadline) {
+        super("Deadline of " + deadline.toMillis() + " ms exceeded, the call is abandoned");
+        this.deadline = deadline;
+    }
+}
@@ -0,0 +1,99 @@
+package webclient.tls;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SslHandler;
+import lombok.extern.slf4j.Slf4j;
+import reactor.netty.NettyPipeline;
+import reactor.netty.http.Http11SslContextSpec;
+import reactor.netty.http.Http2SslContextSpec;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.tcp.SslProvider;
+import webclient.config.WebClientProperties.ProtocolProperties;
+import webclient.config.WebClientProperties.TlsProperties;
+
+import java.util.function.Consumer;
+
+/**
+ * tls of the web clients. the ssl context is built by the protocol spec of reactor netty, so that ALPN is
+ * still negotiated with HTTP/2, and only the settings given are changed on it
+ */
+@Slf4j
+public final class ClientTls {
+
+    public static final String HANDSHAKE = "webclient.client.tls.handshake";
+
+    private static final String HANDSHAKE_METRICS = "webclient.tlsHandshakeMetrics";
+
+    private ClientTls() {
+    }
+
+    /**
+     * @param httpClient
+     * @param client        apim or direct
+     * @param properties
+     * @param protocol
+     * @param meterRegistry
+     * @return the http client with its ssl context and handshake metrics, unchanged when tls is not enabled
+     */
+    public static HttpClient configure(HttpClient httpClient, String client, TlsProperties properties, ProtocolProperties protocol,
+                                       MeterRegistry meterRegistry) {
+        if (!properties.getEnabled()) {
+            return httpClient;
+        }
+
+        final io.netty.handler.ssl.SslProvider provider = provider(properties.getProvider());
+        log.info("Client {} uses the {} tls provider", client, provider);
+
+        final Consumer<SslContextBuilder> settings = builder -> {
+            builder.sslProvider(provider);
+            if (!properties.getCiphers().isEmpty()) {
+                builder.ciphers(properties.getCiphers());
+            }
+            if (!properties.getProtocols().isEmpty()) {
+                builder.protocols(properties.getProtocols());
+            }
+            if (properties.getSessionCacheSize() != null) {
+                builder.sessionCacheSize(properties.getSessionCacheSize());
+            }
+            if (properties.getSessionTimeout() != null) {
+                builder.sessionTimeout(properties.getSessionTimeout().getSeconds());
+            }
+        };
+        final SslProvider.ProtocolSslContextSpec contextSpec = protocol.isHttp2()
+                ? Http2SslContextSpec.forClient().configure(settings)
+                : Http11SslContextSpec.forClient().configure(settings);
+
+        return httpClient
+                .secure(spec -> spec.sslContext(contextSpec)
+                        .handshakeTimeout(properties.getHandshakeTimeout())
+                        .closeNotifyFlushTimeout(properties.getCloseNotifyFlushTimeout())
+                        .closeNotifyReadTimeout(properties.getCloseNotifyReadTimeout()))
+                .doOnChannelInit((observer, channel, remoteAddress) -> {
+                    if (channel.pipeline().get(SslHandler.class) != null) {
+                        channel.pipeline().addBefore(NettyPipeline.SslHandler, HANDSHAKE_METRICS,
+                                new TlsHandshakeMetrics(client, provider, meterRegistry));
+                    }
+                });
+    }
+
+    /**
+     * @param provider
+     * @return the netty provider, the jdk when openssl is asked for but netty tcnative is not available
+     */
+    static io.netty.handler.ssl.SslProvider provider(TlsProperties.Provider provider) {
+        switch (provider) {
+            case JDK:
+                return io.netty.handler.ssl.SslProvider.JDK;
+            case OPENSSL:
+                if (!OpenSsl.isAvailable()) {
+                    log.warn("OpenSSL is not available, falling back to the jdk", OpenSsl.unavailabilityCause());
+                    return io.netty.handler.ssl.SslProvider.JDK;
+                }
+                return io.netty.handler.ssl.SslProvider.OPENSSL;
+            default:
+                return OpenSsl.isAvailable() ? io.netty.handler.ssl.SslProvider.OPENSSL : io.netty.handler.ssl.SslProvider.JDK;
+        }
+    }
+}
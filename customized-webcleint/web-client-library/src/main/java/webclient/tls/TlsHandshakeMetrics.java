@@ -0,0 +1,48 @@
+package webclient.tls;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.ssl.SslHandler;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * times the handshake of a connection, from the connection being active to the handshake being done.
+ * it sits before the ssl handler and leaves the pipeline once the connection is active
+ */
+class TlsHandshakeMetrics extends ChannelInboundHandlerAdapter {
+
+    private final String client;
+    private final io.netty.handler.ssl.SslProvider provider;
+    private final MeterRegistry meterRegistry;
+
+    TlsHandshakeMetrics(String client, io.netty.handler.ssl.SslProvider provider, MeterRegistry meterRegistry) {
+        this.client = client;
+        this.provider = provider;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        final SslHandler sslHandler = ctx.pipeline().get(SslHandler.class);
+        if (sslHandler != null) {
+            final long start = System.nanoTime();
+            sslHandler.handshakeFuture().addListener(future -> {
+                final String protocol = future.isSuccess() ? sslHandler.engine().getSession().getProtocol() : "unknown";
+                Timer.builder(ClientTls.HANDSHAKE)
+                        .tag("client", client)
+                        .tag("provider", provider.name().toLowerCase(Locale.ROOT))
+                        .tag("protocol", protocol)
+                        .tag("outcome", future.isSuccess() ? "success" : "failure")
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            });
+        }
+
+        ctx.pipeline().remove(this);
+        super.channelActive(ctx);
+    }
+}
@@ -0,0 +1,81 @@
+package webclient.transport;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.LoopResources;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * event loops owned by the web clients, of a single transport.
+ * only tcp and udp (dns) channels are created on them
+ */
+class ClientLoopResources implements LoopResources {
+
+    private final String name;
+    private final NativeTransport transport;
+    private final EventLoopGroup group;
+
+    ClientLoopResources(String name, NativeTransport transport, int threads) {
+        this.name = name;
+        this.transport = transport;
+        this.group = transport.createGroup(threads, new DefaultThreadFactory(name, true));
+    }
+
+    String getName() {
+        return name;
+    }
+
+    NativeTransport getTransport() {
+        return transport;
+    }
+
+    EventLoopGroup getGroup() {
+        return group;
+    }
+
+    @Override
+    public EventLoopGroup onServer(boolean useNative) {
+        return group;
+    }
+
+    @Override
+    public <CHANNEL extends Channel> CHANNEL onChannel(Class<CHANNEL> channelType, EventLoopGroup group) {
+        try {
+            return onChannelClass(channelType, group).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create a " + channelType.getSimpleName() + " on " + transport.getTag(), e);
+        }
+    }
+
+    @Override
+    public <CHANNEL extends Channel> Class<? extends CHANNEL> onChannelClass(Class<CHANNEL> channelType, EventLoopGroup group) {
+        if (SocketChannel.class.equals(channelType)) {
+            return transport.socketChannel().asSubclass(channelType);
+        }
+        if (DatagramChannel.class.equals(channelType)) {
+            return transport.datagramChannel().asSubclass(channelType);
+        }
+        throw new IllegalArgumentException("Channel " + channelType.getSimpleName() + " is not supported by the loops of the web clients");
+    }
+
+    @Override
+    public boolean daemon() {
+        return true;
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return group.isShuttingDown();
+    }
+
+    @Override
+    public Mono<Void> disposeLater() {
+        return Mono.create(sink -> group.shutdownGracefully(0, 2, TimeUnit.SECONDS)
+                .addListener(future -> sink.success()));
+    }
+}
@@ -0,0 +1,153 @@
+package webclient.transport;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.netty.http.client.HttpClient;
+import webclient.config.WebClientProperties.TransportProperties;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * netty transport of the web clients: event loops, socket options and dns resolver.
+ * the transport in use is exposed by a gauge tagged with it, the shared and dedicated loops by their pending tasks,
+ * their registered channels and the lag of a probe task run on each loop every second
+ */
+@Slf4j
+public class ClientTransports implements Disposable {
+
+    public static final String TRANSPORT = "webclient.client.transport";
+    public static final String PENDING_TASKS = "webclient.client.transport.pending.tasks";
+    public static final String CHANNELS = "webclient.client.transport.channels";
+    public static final String LAG = "webclient.client.transport.loop.lag";
+
+    private static final String SHARED = "webclient-shared";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ClientLoopResources> loops = new ConcurrentHashMap<>();
+
+    private String sharedClient;
+    private TransportProperties.Type sharedType;
+    private int sharedThreads;
+
+    public ClientTransports(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param httpClient
+     * @param client     apim or direct
+     * @param properties
+     * @return the http client running on the loops of the client, with its socket options and resolver
+     */
+    public HttpClient configure(HttpClient httpClient, String client, TransportProperties properties) {
+        httpClient = httpClient
+                .option(ChannelOption.TCP_NODELAY, properties.getTcpNoDelay())
+                .option(ChannelOption.SO_KEEPALIVE, properties.getKeepAlive());
+        if (properties.getSendBufferSize() != null) {
+            httpClient = httpClient.option(ChannelOption.SO_SNDBUF, (int) properties.getSendBufferSize().toBytes());
+        }
+        if (properties.getReceiveBufferSize() != null) {
+            httpClient = httpClient.option(ChannelOption.SO_RCVBUF, (int) properties.getReceiveBufferSize().toBytes());
+        }
+
+        final TransportProperties.DnsProperties dns = properties.getDns();
+        if (dns.getEnabled()) {
+            httpClient = httpClient.resolver(resolver -> resolver
+                    .cacheMinTimeToLive(dns.getMinTtl())
+                    .cacheMaxTimeToLive(dns.getMaxTtl())
+                    .cacheNegativeTimeToLive(dns.getNegativeTtl())
+                    .queryTimeout(dns.getQueryTimeout()));
+        }
+
+        final ClientLoopResources clientLoops = loops(client, properties);
+        final NativeTransport transport = clientLoops == null ? NativeTransport.global() : clientLoops.getTransport();
+        Gauge.builder(TRANSPORT, () -> 1)
+                .tags(Tags.of("client", client, "transport", transport.getTag(), "loops", properties.getLoops().name().toLowerCase(Locale.ROOT)))
+                .register(meterRegistry);
+        log.info("Client {} runs on the {} loops with {}", client, properties.getLoops().name().toLowerCase(Locale.ROOT), transport.getTag());
+
+        return clientLoops == null ? httpClient : httpClient.runOn(clientLoops, true);
+    }
+
+    @Override
+    public void dispose() {
+        loops.values().forEach(ClientLoopResources::dispose);
+    }
+
+    private ClientLoopResources loops(String client, TransportProperties properties) {
+        final int threads = properties.getWorkerCount() != null ? properties.getWorkerCount() : Runtime.getRuntime().availableProcessors();
+        switch (properties.getLoops()) {
+            case SHARED:
+                return shared(client, properties, threads);
+            case DEDICATED:
+                return loops.computeIfAbsent("webclient-" + client, name -> create(name, properties, threads));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * the shared loops are created with the type and the worker count of the first client,
+     * a later client asking for other ones runs on them anyway
+     */
+    private synchronized ClientLoopResources shared(String client, TransportProperties properties, int threads) {
+        ClientLoopResources resources = loops.get(SHARED);
+        if (resources == null) {
+            resources = create(SHARED, properties, threads);
+            loops.put(SHARED, resources);
+            sharedClient = client;
+            sharedType = properties.getType();
+            sharedThreads = threads;
+        } else if (sharedType != properties.getType() || sharedThreads != threads) {
+            log.warn("Client {} asks for the shared loops with {} and {} workers, they run with {} and {} workers as set by client {}",
+                    client, properties.getType(), threads, sharedType, sharedThreads, sharedClient);
+        }
+        return resources;
+    }
+
+    private ClientLoopResources create(String name, TransportProperties properties, int threads) {
+        final ClientLoopResources resources = new ClientLoopResources(name, NativeTransport.resolve(properties.getType()), threads);
+        final Tags tags = Tags.of("loops", name, "transport", resources.getTransport().getTag());
+
+        Gauge.builder(PENDING_TASKS, resources, group -> sum(group, executor ->
+                        executor instanceof SingleThreadEventExecutor ? ((SingleThreadEventExecutor) executor).pendingTasks() : 0))
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder(CHANNELS, resources, group -> sum(group, executor ->
+                        executor instanceof SingleThreadEventLoop ? ((SingleThreadEventLoop) executor).registeredChannels() : 0))
+                .tags(tags)
+                .register(meterRegistry);
+
+        final Timer lag = Timer.builder(LAG)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        for (EventExecutor executor : resources.getGroup()) {
+            executor.scheduleAtFixedRate(() -> {
+                final long submitted = System.nanoTime();
+                executor.execute(() -> lag.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS));
+            }, 1, 1, TimeUnit.SECONDS);
+        }
+        return resources;
+    }
+
+    private static int sum(ClientLoopResources resources, ToIntFunction<EventExecutor> size) {
+        int sum = 0;
+        for (EventExecutor executor : resources.getGroup()) {
+            sum += Math.max(0, size.applyAsInt(executor));
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,197 @@
+package webclient.transport;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringDatagramChannel;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.ClassUtils;
+import reactor.netty.resources.LoopResources;
+import webclient.config.WebClientProperties.TransportProperties;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * the netty transports a web client can run on.
+ * the native ones need their optional dependency on the classpath and a kernel supporting them,
+ * their classes are only touched once they are known to be present
+ */
+@Slf4j
+public enum NativeTransport {
+
+    IO_URING("io_uring") {
+        @Override
+        boolean isAvailable() {
+            return IO_URING_PRESENT && IOUring.isAvailable();
+        }
+
+        @Override
+        EventLoopGroup createGroup(int threads, ThreadFactory threadFactory) {
+            return new IOUringEventLoopGroup(threads, threadFactory);
+        }
+
+        @Override
+        Class<? extends Channel> socketChannel() {
+            return IOUringSocketChannel.class;
+        }
+
+        @Override
+        Class<? extends Channel> datagramChannel() {
+            return IOUringDatagramChannel.class;
+        }
+    },
+
+    EPOLL("epoll") {
+        @Override
+        boolean isAvailable() {
+            return EPOLL_PRESENT && Epoll.isAvailable();
+        }
+
+        @Override
+        EventLoopGroup createGroup(int threads, ThreadFactory threadFactory) {
+            return new EpollEventLoopGroup(threads, threadFactory);
+        }
+
+        @Override
+        Class<? extends Channel> socketChannel() {
+            return EpollSocketChannel.class;
+        }
+
+        @Override
+        Class<? extends Channel> datagramChannel() {
+            return EpollDatagramChannel.class;
+        }
+    },
+
+    /**
+     * the kqueue transport is not a dependency of the library, it is only reported for the global loops
+     * reactor netty runs on it when found on the classpath
+     */
+    KQUEUE("kqueue") {
+        @Override
+        boolean isAvailable() {
+            return KQUEUE_PRESENT && kqueueAvailable();
+        }
+
+        @Override
+        EventLoopGroup createGroup(int threads, ThreadFactory threadFactory) {
+            throw new UnsupportedOperationException("kqueue loops are only created by reactor netty");
+        }
+
+        @Override
+        Class<? extends Channel> socketChannel() {
+            throw new UnsupportedOperationException("kqueue loops are only created by reactor netty");
+        }
+
+        @Override
+        Class<? extends Channel> datagramChannel() {
+            throw new UnsupportedOperationException("kqueue loops are only created by reactor netty");
+        }
+    },
+
+    NIO("nio") {
+        @Override
+        boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        EventLoopGroup createGroup(int threads, ThreadFactory threadFactory) {
+            return new NioEventLoopGroup(threads, threadFactory);
+        }
+
+        @Override
+        Class<? extends Channel> socketChannel() {
+            return NioSocketChannel.class;
+        }
+
+        @Override
+        Class<? extends Channel> datagramChannel() {
+            return NioDatagramChannel.class;
+        }
+    };
+
+    private static final boolean IO_URING_PRESENT = ClassUtils.isPresent("io.netty.incubator.channel.uring.IOUring", NativeTransport.class.getClassLoader());
+
+    private static final boolean EPOLL_PRESENT = ClassUtils.isPresent("io.netty.channel.epoll.Epoll", NativeTransport.class.getClassLoader());
+
+    private static final String KQUEUE_CLASS = "io.netty.channel.kqueue.KQueue";
+
+    private static final boolean KQUEUE_PRESENT = ClassUtils.isPresent(KQUEUE_CLASS, NativeTransport.class.getClassLoader());
+
+    private final String tag;
+
+    NativeTransport(String tag) {
+        this.tag = tag;
+    }
+
+    /**
+     * @return name of the transport in the logs and the meters
+     */
+    public String getTag() {
+        return tag;
+    }
+
+    abstract boolean isAvailable();
+
+    abstract EventLoopGroup createGroup(int threads, ThreadFactory threadFactory);
+
+    abstract Class<? extends Channel> socketChannel();
+
+    abstract Class<? extends Channel> datagramChannel();
+
+    /**
+     * @param type
+     * @return the transport of the type, nio when it is not available
+     */
+    public static NativeTransport resolve(TransportProperties.Type type) {
+        switch (type) {
+            case IO_URING:
+                return orNio(IO_URING);
+            case EPOLL:
+                return orNio(EPOLL);
+            case NIO:
+                return NIO;
+            default:
+                return IO_URING.isAvailable() ? IO_URING : EPOLL.isAvailable() ? EPOLL : NIO;
+        }
+    }
+
+    /**
+     * @return the transport of the global loops of reactor netty: nio when reactor.netty.native is false,
+     * otherwise the first available of io_uring, epoll and kqueue, as its DefaultLoopNativeDetector
+     */
+    public static NativeTransport global() {
+        if (!LoopResources.DEFAULT_NATIVE) {
+            return NIO;
+        }
+        return IO_URING.isAvailable() ? IO_URING : EPOLL.isAvailable() ? EPOLL : KQUEUE.isAvailable() ? KQUEUE : NIO;
+    }
+
+    private static boolean kqueueAvailable() {
+        try {
+            return (Boolean) ClassUtils.forName(KQUEUE_CLASS, NativeTransport.class.getClassLoader())
+                    .getMethod("isAvailable")
+                    .invoke(null);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static NativeTransport orNio(NativeTransport transport) {
+        if (transport.isAvailable()) {
+            return transport;
+        }
+        log.warn("Transport {} is not available, falling back to nio", transport.tag);
+        return NIO;
+    }
+}
@@ -0,0 +1,198 @@
+package webclient.warmup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.lang.Nullable;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import webclient.application.CustomizedWebClient;
+import webclient.application.CustomizedWebClientRegistry;
+import webclient.config.WebClientProperties;
+import webclient.loadbalancer.LoadBalancer;
+import webclient.oauth2.ApimTokenManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * warms the web clients up once the application is started. the application runners run before the readiness
+ * is reported, a blocking warm-up delays it by its time budget at most.
+ * the apim, the direct server and the backends whose warm-up is enabled are warmed up.
+ * for a client, the apim token is fetched first, then its connections are opened, then its paths are called.
+ * the failures are logged and ignored, the warm-up never fails the startup
+ */
+@Slf4j
+public class WebClientWarmUp implements ApplicationRunner, Disposable {
+
+    public static final String DURATION = "webclient.client.warmup";
+
+    /**
+     * the principal the oauth2 filter uses outside of a request
+     */
+    private static final AnonymousAuthenticationToken ANONYMOUS = new AnonymousAuthenticationToken(
+            "anonymous", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+    private final CustomizedWebClient webClient;
+    private final WebClientProperties properties;
+    private final CustomizedWebClientRegistry backends;
+    private final ApimTokenManager tokenManager;
+    private final MeterRegistry meterRegistry;
+    private final Disposable.Composite background = Disposables.composite();
+
+    /**
+     * @param webClient     null when neither apim nor the direct server is enabled
+     * @param properties
+     * @param backends      null when there is no backend to warm up
+     * @param tokenManager  null when apim is not enabled
+     * @param meterRegistry
+     */
+    public WebClientWarmUp(@Nullable CustomizedWebClient webClient, WebClientProperties properties, @Nullable CustomizedWebClientRegistry backends,
+                           @Nullable ApimTokenManager tokenManager, MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.properties = properties;
+        this.backends = backends;
+        this.tokenManager = tokenManager;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        final List<Mono<Void>> blocking = new ArrayList<>();
+
+        final WebClientProperties.ApimProperties apim = properties.getApim();
+        if (apim != null && webClient != null && webClient.getWebClientWithApim() != null && apim.getWarmUp().getEnabled()) {
+            schedule(warmUp(CustomizedWebClient.APIM, webClient, webClient.getWebClientWithApim(), null, apim.getWarmUp()),
+                    apim.getWarmUp(), blocking);
+        }
+
+        final WebClientProperties.DirectServerProperties directServer = properties.getDirectServer();
+        if (directServer != null && webClient != null && webClient.getWebClient() != null && directServer.getWarmUp().getEnabled()) {
+            schedule(warmUp(CustomizedWebClient.DIRECT_SERVER, webClient, webClient.getWebClient(), directServer.getEndpoints(), directServer.getWarmUp()),
+                    directServer.getWarmUp(), blocking);
+        }
+
+        if (backends != null) {
+            for (String name : backends.getNames()) {
+                final WebClientProperties.DirectServerProperties backend = properties.getBackends().get(name);
+                if (backend.getWarmUp().getEnabled()) {
+                    final CustomizedWebClient backendClient = backends.get(name);
+                    schedule(warmUp(name, backendClient, backendClient.getWebClient(), backend.getEndpoints(), backend.getWarmUp()),
+                            backend.getWarmUp(), blocking);
+                }
+            }
+        }
+
+        // each warm-up is bounded by its own timeout, the clients warm up in parallel
+        Mono.when(blocking).block();
+    }
+
+    @Override
+    public void dispose() {
+        background.dispose();
+    }
+
+    private void schedule(Mono<Void> warmUp, WebClientProperties.WarmUpProperties warmUpProperties, List<Mono<Void>> blocking) {
+        if (warmUpProperties.getBlocking()) {
+            blocking.add(warmUp);
+        } else {
+            background.add(warmUp.subscribe());
+        }
+    }
+
+    /**
+     * @param client
+     * @param customizedWebClient the client calling the paths
+     * @param connections         the raw web client of the client, to open its connections without the resilience of the call path
+     * @param endpoints           the balanced endpoints of the client, null or empty when it calls its url only
+     * @param warmUp
+     * @return the warm-up of the client, completing within its timeout
+     */
+    private Mono<Void> warmUp(String client, CustomizedWebClient customizedWebClient, WebClient connections,
+                              @Nullable List<WebClientProperties.DirectServerProperties.EndpointProperties> endpoints,
+                              WebClientProperties.WarmUpProperties warmUp) {
+        return Mono.defer(() -> {
+            final long start = System.nanoTime();
+            log.info("Warming up client {}", client);
+
+            // the outcome is recorded before the signal goes downstream, the caller may be blocked on it
+            return token(client)
+                    .then(connect(client, connections, endpoints, warmUp))
+                    .then(calls(client, customizedWebClient, warmUp))
+                    .doOnSuccess(ignored -> record(client, start, "success"))
+                    .doOnError(throwable -> record(client, start, "error"))
+                    .timeout(warmUp.getTimeout(), Mono.fromRunnable(() -> {
+                        log.warn("Warm-up of client {} did not complete within {}", client, warmUp.getTimeout());
+                        record(client, start, "timeout");
+                    }));
+        });
+    }
+
+    private void record(String client, long start, String outcome) {
+        final long duration = System.nanoTime() - start;
+        Timer.builder(DURATION)
+                .tag("client", client)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(duration, TimeUnit.NANOSECONDS);
+        log.info("Client {} warmed up in {} ms", client, TimeUnit.NANOSECONDS.toMillis(duration));
+    }
+
+    private Mono<Void> token(String client) {
+        if (!CustomizedWebClient.APIM.equals(client) || tokenManager == null) {
+            return Mono.empty();
+        }
+
+        return tokenManager.authorize(OAuth2AuthorizeRequest.withClientRegistrationId(CustomizedWebClient.APIM)
+                        .principal(ANONYMOUS)
+                        .build())
+                .doOnError(throwable -> log.warn("Warm-up of client {} could not fetch the token", client, throwable))
+                .onErrorResume(throwable -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * the requests run concurrently, so that each one holds its own connection. every endpoint has its own pool,
+     * the requests are sent to each one in turn rather than through the load balancing strategy.
+     * the connections are released to the pool with their response
+     */
+    private static Mono<Void> connect(String client, WebClient connections,
+                                      @Nullable List<WebClientProperties.DirectServerProperties.EndpointProperties> endpoints,
+                                      WebClientProperties.WarmUpProperties warmUp) {
+        if (warmUp.getConnections() == 0) {
+            return Mono.empty();
+        }
+
+        final boolean balanced = endpoints != null && !endpoints.isEmpty();
+        final int requests = (balanced ? endpoints.size() : 1) * warmUp.getConnections();
+        return Flux.range(0, requests)
+                .flatMap(i -> {
+                    WebClient.RequestHeadersSpec<?> head = connections.head().uri(warmUp.getConnectPath());
+                    if (balanced) {
+                        head = head.attribute(LoadBalancer.ENDPOINT_ATTRIBUTE, i % endpoints.size());
+                    }
+                    return head.exchangeToMono(response -> response.releaseBody())
+                            .doOnError(throwable -> log.debug("Warm-up of client {} could not open a connection", client, throwable))
+                            .onErrorResume(throwable -> Mono.empty());
+                }, requests)
+                .then();
+    }
+
+    private static Mono<Void> calls(String client, CustomizedWebClient customizedWebClient, WebClientProperties.WarmUpProperties warmUp) {
+        return Flux.fromIterable(warmUp.getPaths())
+                .concatMap(path -> Flux.range(0, warmUp.getIterations())
+                        .concatMap(i -> customizedWebClient.warmUp(client, path)
+                                .doOnError(throwable -> log.debug("Warm-up call of client {} to {} failed", client, path, throwable))
+                                .onErrorResume(throwable -> Mono.empty())))
+                .then();
+    }
+}
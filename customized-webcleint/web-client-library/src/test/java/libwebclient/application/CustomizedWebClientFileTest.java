@@ -0,0 +1,90 @@
+package libwebclient.application;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import webclient.application.CustomizedWebClient;
+import webclient.config.WebClientProperties;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class CustomizedWebClientFileTest {
+
+    private final WebClientProperties properties = TestWebClients.properties(Map.of(
+            "web.client.direct-server.path.documents.uri", "/api/documents"
+    ));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void theBodyIsWrittenToTheFile() throws IOException {
+        CustomizedWebClient client = client(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                .body(Flux.just(buffer("first "), buffer("second")))
+                .build()));
+        Path target = directory.resolve("document.pdf");
+
+        StepVerifier.create(client.download("/api/documents/1", new LinkedMultiValueMap<>(), target))
+                .expectNext(target)
+                .verifyComplete();
+
+        assertEquals("first second", new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void aFailedDownloadLeavesNoPartialFile() {
+        CustomizedWebClient client = client(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                .body(Flux.concat(Flux.just(buffer("first ")), Flux.error(new IOException("connection reset"))))
+                .build()));
+        Path target = directory.resolve("document.pdf");
+
+        StepVerifier.create(client.download("/api/documents/1", new LinkedMultiValueMap<>(), target))
+                .expectError(IOException.class)
+                .verify();
+
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    void theBuffersArePostedAsTheyAre() {
+        MockClientHttpRequest[] sent = new MockClientHttpRequest[1];
+        CustomizedWebClient client = client(request -> {
+            sent[0] = new MockClientHttpRequest(request.method(), request.url());
+            return request.writeTo(sent[0], ExchangeStrategies.withDefaults())
+                    .thenReturn(ClientResponse.create(HttpStatus.OK).build());
+        });
+
+        StepVerifier.create(client.postDataBuffers(Flux.just(buffer("raw "), buffer("bytes")), Void.class, "/api/documents", null, null))
+                .verifyComplete();
+
+        assertEquals(MediaType.APPLICATION_OCTET_STREAM, sent[0].getHeaders().getContentType());
+        assertEquals("raw bytes", sent[0].getBodyAsString().block());
+    }
+
+    private CustomizedWebClient client(ExchangeFunction server) {
+        return TestWebClients.client(properties, server, new SimpleMeterRegistry());
+    }
+
+    private static DataBuffer buffer(String value) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
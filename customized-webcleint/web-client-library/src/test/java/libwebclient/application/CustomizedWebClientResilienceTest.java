@@ -0,0 +1,87 @@
+package libwebclient.application;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import webclient.application.CustomizedWebClient;
+import webclient.config.WebClientProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CustomizedWebClientResilienceTest {
+
+    /**
+     * two calls in the window, the breaker opens when both are slow
+     */
+    private static final Map<String, String> CIRCUIT_BREAKER = Map.of(
+            "web.client.direct-server.path.products.uri", "/api/products",
+            "web.client.direct-server.circuit-breaker.enabled", "true",
+            "web.client.direct-server.circuit-breaker.sliding-window-size", "2",
+            "web.client.direct-server.circuit-breaker.minimum-number-of-calls", "2",
+            "web.client.direct-server.circuit-breaker.slow-call-rate-threshold", "100",
+            "web.client.direct-server.circuit-breaker.slow-call-duration-threshold", "200ms"
+    );
+
+    @Test
+    void theRateLimiterWaitIsNotASlowCall() {
+        WebClientProperties properties = TestWebClients.properties(CIRCUIT_BREAKER, Map.of(
+                "web.client.direct-server.rate-limit.enabled", "true",
+                "web.client.direct-server.rate-limit.limit-for-period", "1",
+                "web.client.direct-server.rate-limit.period", "500ms",
+                "web.client.direct-server.rate-limit.burst", "1",
+                "web.client.direct-server.rate-limit.max-wait", "1s"
+        ));
+        CustomizedWebClient client = TestWebClients.client(properties,
+                request -> Mono.just(ok()), new SimpleMeterRegistry());
+
+        // the third and the fourth calls wait for a token, the breaker would be open at the fifth
+        for (int i = 0; i < 5; i++) {
+            assertEquals("product", get(client));
+        }
+    }
+
+    @Test
+    void theConcurrencyLimiterWaitIsNotASlowCall() {
+        WebClientProperties properties = TestWebClients.properties(CIRCUIT_BREAKER, Map.of(
+                "web.client.direct-server.concurrency-limit.enabled", "true",
+                "web.client.direct-server.concurrency-limit.initial-limit", "1",
+                "web.client.direct-server.concurrency-limit.min-limit", "1",
+                "web.client.direct-server.concurrency-limit.max-limit", "1",
+                "web.client.direct-server.concurrency-limit.max-queue", "10",
+                "web.client.direct-server.concurrency-limit.max-queue-wait", "2s"
+        ));
+        CustomizedWebClient client = TestWebClients.client(properties,
+                request -> Mono.delay(Duration.ofMillis(100)).map(tick -> ok()), new SimpleMeterRegistry());
+
+        // the second and the third calls wait for the permit of the previous one
+        List<String> products = Flux.range(0, 3)
+                .flatMap(i -> client.get(String.class, "/api/products", new LinkedMultiValueMap<>(), MediaType.TEXT_PLAIN))
+                .collectList()
+                .block();
+
+        assertEquals(3, products.size());
+        // the breaker would be open
+        assertEquals("product", get(client));
+    }
+
+    private static String get(CustomizedWebClient client) {
+        return client.get(String.class, "/api/products", new LinkedMultiValueMap<>(), MediaType.TEXT_PLAIN).block();
+    }
+
+    private static ClientResponse ok() {
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN_VALUE)
+                .body("product")
+                .build();
+    }
+}
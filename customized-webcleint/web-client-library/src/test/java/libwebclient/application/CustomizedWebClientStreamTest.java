@@ -0,0 +1,81 @@
+package libwebclient.application;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import webclient.application.CustomizedWebClient;
+import webclient.config.WebClientProperties;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CustomizedWebClientStreamTest {
+
+    private final WebClientProperties properties = TestWebClients.properties(Map.of(
+            "web.client.direct-server.path.products.uri", "/api/products",
+            "web.client.retry.max-attempts", "2",
+            "web.client.retry.min-backoff", "1ms",
+            "web.client.retry.jitter", "NONE"
+    ));
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @Test
+    void ndjsonElementsAreDecodedOneByOne() {
+        CustomizedWebClient client = client(request -> Mono.just(response(MediaType.APPLICATION_NDJSON,
+                "{\"id\":1,\"name\":\"a\"}\n{\"id\":2,\"name\":\"b\"}\n")));
+
+        StepVerifier.create(client.getFlux(Product.class, "/api/products", new LinkedMultiValueMap<>(), MediaType.APPLICATION_NDJSON), 1)
+                .expectNextMatches(product -> product.id == 1)
+                .thenRequest(1)
+                .expectNextMatches(product -> product.id == 2)
+                .verifyComplete();
+    }
+
+    @Test
+    void serverSentEventsAreDecoded() {
+        CustomizedWebClient client = client(request -> Mono.just(response(MediaType.TEXT_EVENT_STREAM,
+                "data:{\"id\":1,\"name\":\"a\"}\n\ndata:{\"id\":2,\"name\":\"b\"}\n\n")));
+
+        StepVerifier.create(client.getFlux(Product.class, "/api/products", new LinkedMultiValueMap<>(), MediaType.TEXT_EVENT_STREAM))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void aFailureBeforeTheFirstElementIsRetried() {
+        CustomizedWebClient client = client(request -> requests.incrementAndGet() == 1
+                ? Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build())
+                : Mono.just(response(MediaType.APPLICATION_JSON, "[{\"id\":1,\"name\":\"a\"},{\"id\":2,\"name\":\"b\"}]")));
+
+        StepVerifier.create(client.getFluxAndRetry(Product.class, "/api/products", new LinkedMultiValueMap<>(), MediaType.APPLICATION_JSON))
+                .expectNextCount(2)
+                .verifyComplete();
+        assertEquals(2, requests.get());
+    }
+
+    private CustomizedWebClient client(ExchangeFunction server) {
+        return TestWebClients.client(properties, server, new SimpleMeterRegistry());
+    }
+
+    private static ClientResponse response(MediaType contentType, String body) {
+        return ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, contentType.toString())
+                .body(body)
+                .build();
+    }
+
+    static class Product {
+        public int id;
+        public String name;
+    }
+}
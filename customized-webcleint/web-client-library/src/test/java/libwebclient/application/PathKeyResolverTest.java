@@ -0,0 +1,41 @@
+package libwebclient.application;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import webclient.application.PathKeyResolver;
+import webclient.config.WebClientProperties;
+import webclient.metrics.WebClientMetrics;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PathKeyResolverTest {
+
+    private final PathKeyResolver resolver = new PathKeyResolver(
+            new Binder(new MapConfigurationPropertySource(Map.of(
+                    "path.products.uri", "/api/products",
+                    "path.product-stock.uri", "/api/products/stock"
+            ))).bind("path", Bindable.mapOf(String.class, WebClientProperties.PathProperties.class)).get()
+    );
+
+    @Test
+    void resolveExactUri() {
+        assertEquals("products", resolver.resolve("/api/products"));
+        assertEquals("product-stock", resolver.resolve("/api/products/stock"));
+    }
+
+    @Test
+    void resolveLongestPrefix() {
+        assertEquals("products", resolver.resolve("/api/products/42"));
+        assertEquals("product-stock", resolver.resolve("/api/products/stock/42"));
+    }
+
+    @Test
+    void resolveUnknownPath() {
+        assertEquals(WebClientMetrics.NONE, resolver.resolve("/api/orders/42"));
+        assertEquals(WebClientMetrics.NONE, new PathKeyResolver(null).resolve("/api/products"));
+    }
+}
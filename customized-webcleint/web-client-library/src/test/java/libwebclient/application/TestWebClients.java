@@ -0,0 +1,54 @@
+package libwebclient.application;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import webclient.application.CustomizedWebClient;
+import webclient.config.WebClientProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * direct server clients of the tests, an exchange function answers in place of the server
+ */
+public final class TestWebClients {
+
+    public static final String URL = "http://localhost:8080";
+
+    private TestWebClients() {
+    }
+
+    /**
+     * @param source properties under web.client, the direct server url defaults to {@link #URL}
+     */
+    public static WebClientProperties properties(Map<String, String> source) {
+        Map<String, String> merged = new HashMap<>(source);
+        merged.putIfAbsent("web.client.direct-server.url", URL);
+        return new Binder(new MapConfigurationPropertySource(merged))
+                .bind("web.client", WebClientProperties.class)
+                .get();
+    }
+
+    /**
+     * @param overrides replace or complete the defaults
+     */
+    public static WebClientProperties properties(Map<String, String> defaults, Map<String, String> overrides) {
+        Map<String, String> source = new HashMap<>(defaults);
+        source.putAll(overrides);
+        return properties(source);
+    }
+
+    public static CustomizedWebClient client(WebClientProperties properties, ExchangeFunction server, MeterRegistry meterRegistry) {
+        return client(properties, WebClient.builder().exchangeFunction(server), meterRegistry);
+    }
+
+    /**
+     * @param builder the exchange function and the filters of the direct server client, the base url is set here
+     */
+    public static CustomizedWebClient client(WebClientProperties properties, WebClient.Builder builder, MeterRegistry meterRegistry) {
+        return new CustomizedWebClient(null, builder.baseUrl(URL).build(), properties, meterRegistry);
+    }
+}
@@ -0,0 +1,91 @@
+package libwebclient.batch;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.scheduler.VirtualTimeScheduler;
+import webclient.batch.BatchExecutor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchExecutorTest {
+
+    private final List<List<Long>> bulkCalls = new CopyOnWriteArrayList<>();
+
+    private Mono<List<String>> bulkCall(List<Long> keys) {
+        bulkCalls.add(keys);
+        return Mono.just(keys.stream()
+                .filter(key -> key != 404L)
+                .map(key -> "product-" + key)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void fullBatchIsSentAtOnce() {
+        BatchExecutor<Long, String> executor = new BatchExecutor<>(3, Duration.ofHours(1), this::bulkCall,
+                value -> Long.valueOf(value.substring("product-".length())), Schedulers.parallel());
+
+        Mono<String> first = executor.submit(1L);
+        Mono<String> second = executor.submit(2L);
+        Mono<String> third = executor.submit(3L);
+
+        List<String> values = Mono.zip(first, second, third)
+                .map(tuple -> List.of(tuple.getT1(), tuple.getT2(), tuple.getT3()))
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(List.of("product-1", "product-2", "product-3"), values);
+        assertEquals(List.of(List.of(1L, 2L, 3L)), bulkCalls);
+    }
+
+    @Test
+    void partialBatchIsSentAfterTheWindow() {
+        BatchExecutor<Long, String> executor = new BatchExecutor<>(100, Duration.ofMillis(20), this::bulkCall,
+                value -> Long.valueOf(value.substring("product-".length())), Schedulers.parallel());
+
+        Mono<String> found = executor.submit(7L).cache();
+        Mono<String> missing = executor.submit(404L).cache();
+        found.subscribe();
+        missing.subscribe();
+
+        assertEquals("product-7", found.block(Duration.ofSeconds(5)));
+        assertNull(missing.block(Duration.ofSeconds(5)));
+        assertEquals(1, bulkCalls.size());
+    }
+
+    @Test
+    void aCancelledCallerLeavesTheBatch() {
+        VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+        BatchExecutor<Long, String> executor = new BatchExecutor<>(100, Duration.ofMillis(20), this::bulkCall,
+                value -> Long.valueOf(value.substring("product-".length())), scheduler);
+
+        Mono<String> kept = executor.submit(1L).cache();
+        kept.subscribe();
+        Disposable cancelled = executor.submit(2L).subscribe();
+        cancelled.dispose();
+        scheduler.advanceTimeBy(Duration.ofMillis(20));
+
+        assertEquals("product-1", kept.block(Duration.ofSeconds(5)));
+        assertEquals(List.of(List.of(1L)), bulkCalls);
+    }
+
+    @Test
+    void aBatchOfCancelledCallersIsDropped() {
+        VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+        BatchExecutor<Long, String> executor = new BatchExecutor<>(100, Duration.ofMillis(20), this::bulkCall,
+                value -> Long.valueOf(value.substring("product-".length())), scheduler);
+
+        executor.submit(1L).subscribe().dispose();
+        executor.submit(2L).subscribe().dispose();
+        scheduler.advanceTimeBy(Duration.ofSeconds(1));
+
+        assertTrue(bulkCalls.isEmpty());
+    }
+}
@@ -0,0 +1,169 @@
+package libwebclient.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import webclient.application.WebClientCall;
+import webclient.cache.ResponseCache;
+import webclient.config.WebClientProperties;
+import webclient.metrics.WebClientMetrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong nanos = new AtomicLong();
+    private final ResponseCache cache = new ResponseCache(new WebClientMetrics(meterRegistry), nanos::get);
+
+    private final WebClientCall call = WebClientCall.builder()
+            .client("direct")
+            .method(HttpMethod.GET)
+            .path("/api/products")
+            .pathKey("products")
+            .pathProperties(new Binder(new MapConfigurationPropertySource(Map.of(
+                    "path.uri", "/api/products",
+                    "path.cache.enabled", "true"
+            ))).bindOrCreate("path", WebClientProperties.PathProperties.class))
+            .accept(MediaType.APPLICATION_JSON)
+            .build();
+
+    private final Deque<ResponseEntity<String>> responses = new ArrayDeque<>();
+    private final List<HttpHeaders> requests = new ArrayList<>();
+    private final Function<HttpHeaders, Mono<ResponseEntity<String>>> fetch = headers -> {
+        requests.add(headers);
+        return Mono.just(responses.pop());
+    };
+
+    @Test
+    void aFreshEntryIsServedWithoutRequestAndSharedByTheCallers() {
+        responses.add(ok("products", "max-age=60"));
+
+        String first = cache.get(call, String.class, fetch).block();
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        String second = cache.get(call, String.class, fetch).block();
+
+        assertEquals("products", first);
+        // the decoded body is the same instance for every caller, it must not be mutated
+        assertSame(first, second);
+        assertEquals(1, requests.size());
+        assertEquals(1, count("miss"));
+        assertEquals(1, count("hit"));
+    }
+
+    @Test
+    void anExpiredEntryWithoutValidatorsIsFetchedAgain() {
+        responses.add(ok("v1", "max-age=60"));
+        responses.add(ok("v2", "max-age=60"));
+
+        cache.get(call, String.class, fetch).block();
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+        StepVerifier.create(cache.get(call, String.class, fetch))
+                .expectNext("v2")
+                .verifyComplete();
+        assertEquals(2, requests.size());
+        assertTrue(requests.get(1).isEmpty());
+        assertEquals(2, count("miss"));
+    }
+
+    @Test
+    void anExpiredEntryIsRefreshedByA304() {
+        responses.add(ResponseEntity.ok().eTag("\"v1\"").cacheControl(CacheControl.noCache()).body("v1"));
+        responses.add(ResponseEntity.status(HttpStatus.NOT_MODIFIED).header(HttpHeaders.CACHE_CONTROL, "max-age=60").<String>build());
+
+        cache.get(call, String.class, fetch).block();
+
+        StepVerifier.create(cache.get(call, String.class, fetch))
+                .expectNext("v1")
+                .verifyComplete();
+        assertEquals(List.of("\"v1\""), requests.get(1).getIfNoneMatch());
+        assertEquals(1, count("revalidated"));
+
+        // fresh for 60s from the 304
+        StepVerifier.create(cache.get(call, String.class, fetch))
+                .expectNext("v1")
+                .verifyComplete();
+        assertEquals(2, requests.size());
+        assertEquals(1, count("hit"));
+    }
+
+    @Test
+    void aStaleEntryIsServedWhileRevalidatedInTheBackground() {
+        responses.add(ok("v1", "max-age=10, stale-while-revalidate=30"));
+        responses.add(ok("v2", "max-age=10"));
+
+        cache.get(call, String.class, fetch).block();
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(20));
+
+        StepVerifier.create(cache.get(call, String.class, fetch))
+                .expectNext("v1")
+                .verifyComplete();
+        assertEquals(1, count("stale"));
+        assertEquals(2, requests.size());
+
+        StepVerifier.create(cache.get(call, String.class, fetch))
+                .expectNext("v2")
+                .verifyComplete();
+        assertEquals(1, count("hit"));
+    }
+
+    @Test
+    void aNoStoreResponseIsNotCached() {
+        responses.add(ok("v1", "no-store, max-age=60"));
+        responses.add(ok("v2", "no-store, max-age=60"));
+
+        cache.get(call, String.class, fetch).block();
+
+        StepVerifier.create(cache.get(call, String.class, fetch))
+                .expectNext("v2")
+                .verifyComplete();
+        assertEquals(2, count("miss"));
+    }
+
+    @Test
+    void anEntryWithoutValidatorsIsDroppedAfterItsStaleWindow() {
+        responses.add(ok("v1", "max-age=10, stale-while-revalidate=30"));
+        responses.add(ResponseEntity.ok().eTag("\"v1\"").cacheControl(CacheControl.maxAge(10, TimeUnit.SECONDS)).body("v1"));
+
+        cache.get(call, String.class, fetch).block();
+        cache.get(call.toBuilder().path("/api/products/1").build(), String.class, fetch).block();
+        assertEquals(2, entries());
+
+        // the entry with an etag is kept for its revalidation
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(41));
+        assertEquals(1, entries());
+    }
+
+    private static ResponseEntity<String> ok(String body, String cacheControl) {
+        return ResponseEntity.ok().header(HttpHeaders.CACHE_CONTROL, cacheControl).body(body);
+    }
+
+    private double entries() {
+        return meterRegistry.get(ResponseCache.ENTRIES).gauge().value();
+    }
+
+    private double count(String result) {
+        return meterRegistry.get(ResponseCache.CACHE).tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,69 @@
+package libwebclient.coalescing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import webclient.application.WebClientCall;
+import webclient.coalescing.RequestCoalescer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestCoalescerTest {
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+
+    private final WebClientCall call = WebClientCall.builder()
+            .client("direct")
+            .method(HttpMethod.GET)
+            .path("/api/products/42")
+            .accept(MediaType.APPLICATION_JSON)
+            .build();
+
+    private final AtomicInteger subscriptions = new AtomicInteger();
+    private final AtomicInteger cancellations = new AtomicInteger();
+
+    @Test
+    void identicalCallsShareOneRequest() throws Exception {
+        Sinks.One<String> response = Sinks.one();
+        Supplier<Mono<String>> request = request(response);
+
+        CompletableFuture<String> first = coalescer.coalesce(call, String.class, request).toFuture();
+        CompletableFuture<String> second = coalescer.coalesce(call, String.class, request).toFuture();
+        response.tryEmitValue("product");
+
+        assertEquals("product", first.get());
+        assertEquals("product", second.get());
+        assertEquals(1, subscriptions.get());
+        assertEquals(0, coalescer.size());
+    }
+
+    @Test
+    void upstreamIsCancelledWhenEverySubscriberIsGone() {
+        Sinks.One<String> response = Sinks.one();
+        Supplier<Mono<String>> request = request(response);
+
+        Disposable first = coalescer.coalesce(call, String.class, request).subscribe();
+        Disposable second = coalescer.coalesce(call, String.class, request).subscribe();
+
+        first.dispose();
+        assertEquals(0, cancellations.get());
+
+        second.dispose();
+        assertEquals(1, cancellations.get());
+        assertEquals(1, subscriptions.get());
+        assertEquals(0, coalescer.size());
+    }
+
+    private Supplier<Mono<String>> request(Sinks.One<String> response) {
+        return () -> response.asMono()
+                .doOnSubscribe(subscription -> subscriptions.incrementAndGet())
+                .doOnCancel(cancellations::incrementAndGet);
+    }
+}
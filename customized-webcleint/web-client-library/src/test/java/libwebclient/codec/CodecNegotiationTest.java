@@ -0,0 +1,142 @@
+package libwebclient.codec;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import libwebclient.application.TestWebClients;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import webclient.application.CustomizedWebClient;
+import webclient.codec.BinaryCodecs;
+import webclient.config.WebClientProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CodecNegotiationTest {
+
+    private static final ExchangeStrategies STRATEGIES = ExchangeStrategies.builder()
+            .codecs(configurer -> BinaryCodecs.register(configurer, List.of(WebClientProperties.CodecProperties.Format.CBOR)))
+            .build();
+
+    private final WebClientProperties properties = TestWebClients.properties(Map.of(
+            "web.client.direct-server.codec.formats", "CBOR",
+            "web.client.direct-server.codec.preferred", "CBOR",
+            "web.client.direct-server.path.products.uri", "/api/products",
+            "web.client.direct-server.path.legacy.uri", "/api/legacy",
+            "web.client.direct-server.path.legacy.format", "JSON"
+    ));
+
+    private final List<ClientRequest> requests = new ArrayList<>();
+
+    @Test
+    void thePreferredFormatIsSentAndAcceptedWithJsonAsFallback() {
+        CustomizedWebClient client = client(request -> Mono.just(cbor(new Product(42L, "keyboard"))));
+
+        StepVerifier.create(client.post(new Product(42L, "keyboard"), Product.class, "/api/products", null, null))
+                .expectNextMatches(product -> product.productId == 42L && product.name.equals("keyboard"))
+                .verifyComplete();
+
+        HttpHeaders headers = requests.get(0).headers();
+        assertEquals(MediaType.APPLICATION_CBOR, headers.getContentType());
+        assertEquals(List.of(MediaType.APPLICATION_CBOR, MediaType.parseMediaType("application/json;q=0.5")), headers.getAccept());
+    }
+
+    @Test
+    void aJsonAnswerIsDecoded() {
+        CustomizedWebClient client = client(request -> Mono.just(json("{\"productId\":42,\"name\":\"keyboard\"}")));
+
+        StepVerifier.create(client.get(Product.class, "/api/products", new LinkedMultiValueMap<>(), null))
+                .expectNextMatches(product -> product.productId == 42L)
+                .verifyComplete();
+    }
+
+    @Test
+    void aPathAnswering415IsSentAsJsonFromThenOn() {
+        CustomizedWebClient client = client(request -> MediaType.APPLICATION_CBOR.equals(request.headers().getContentType())
+                ? Mono.just(ClientResponse.create(HttpStatus.UNSUPPORTED_MEDIA_TYPE, STRATEGIES).build())
+                : Mono.just(json("{\"productId\":42,\"name\":\"keyboard\"}")));
+
+        StepVerifier.create(client.post(new Product(42L, "keyboard"), Product.class, "/api/products", null, null))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertEquals(2, requests.size());
+        assertEquals(MediaType.APPLICATION_JSON, requests.get(1).headers().getContentType());
+
+        StepVerifier.create(client.post(new Product(42L, "keyboard"), Product.class, "/api/products", null, null))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertEquals(3, requests.size());
+        assertEquals(MediaType.APPLICATION_JSON, requests.get(2).headers().getContentType());
+    }
+
+    @Test
+    void theFormatOfThePathAndOfTheCallerWin() {
+        CustomizedWebClient client = client(request -> Mono.just(json("{\"productId\":42,\"name\":\"keyboard\"}")));
+
+        StepVerifier.create(client.post(new Product(42L, "keyboard"), Product.class, "/api/legacy", null, null))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(client.post(new Product(42L, "keyboard"), Product.class, "/api/products", MediaType.APPLICATION_JSON, MediaType.APPLICATION_JSON))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        for (ClientRequest request : requests) {
+            assertEquals(MediaType.APPLICATION_JSON, request.headers().getContentType());
+            assertTrue(request.headers().getAccept().stream().noneMatch(MediaType.APPLICATION_CBOR::equals));
+        }
+    }
+
+    private CustomizedWebClient client(ExchangeFunction server) {
+        return TestWebClients.client(properties, request -> {
+            requests.add(request);
+            return server.exchange(request);
+        }, new SimpleMeterRegistry());
+    }
+
+    private static ClientResponse cbor(Product product) {
+        try {
+            byte[] body = new CBORMapper().writeValueAsBytes(product);
+            return ClientResponse.create(HttpStatus.OK, STRATEGIES)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE)
+                    .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body)))
+                    .build();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ClientResponse json(String body) {
+        return ClientResponse.create(HttpStatus.OK, STRATEGIES)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+
+    static class Product {
+        public Long productId;
+        public String name;
+
+        Product() {
+        }
+
+        Product(Long productId, String name) {
+            this.productId = productId;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package libwebclient.compression;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.publisher.Mono;
+import webclient.compression.RequestCompression;
+import webclient.config.WebClientProperties;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RequestCompressionTest {
+
+    private static final String LARGE_BODY = String.join("", Collections.nCopies(200, "{\"id\":1,\"name\":\"product\"}"));
+
+    @Test
+    void thePathSettingsOverrideTheClientOnes() {
+        WebClientProperties.CompressionProperties client = new WebClientProperties.CompressionProperties(true, true, DataSize.ofKilobytes(2));
+
+        assertEquals(Long.valueOf(2048), RequestCompression.threshold(client, null));
+        assertEquals(Long.valueOf(100), RequestCompression.threshold(client,
+                new WebClientProperties.PathProperties.CompressionProperties(null, DataSize.ofBytes(100))));
+        assertNull(RequestCompression.threshold(client,
+                new WebClientProperties.PathProperties.CompressionProperties(false, null)));
+        assertNull(RequestCompression.threshold(null, null));
+    }
+
+    @Test
+    void aBodyOverTheThresholdIsGzipped() throws IOException {
+        MockClientHttpRequest sent = send(LARGE_BODY, 1024L);
+
+        assertEquals("gzip", sent.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        byte[] compressed = DataBufferUtils.join(sent.getBody())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    return bytes;
+                })
+                .block();
+        assertEquals(compressed.length, sent.getHeaders().getContentLength());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertEquals(LARGE_BODY, StreamUtils.copyToString(in, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void aBodyUnderTheThresholdIsSentAsIs() {
+        MockClientHttpRequest sent = send("{\"id\":1}", 1024L);
+
+        assertNull(sent.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("{\"id\":1}", sent.getBodyAsString().block());
+    }
+
+    private static MockClientHttpRequest send(String body, Long threshold) {
+        MockClientHttpRequest[] sent = new MockClientHttpRequest[1];
+        ClientRequest request = ClientRequest.create(HttpMethod.POST, URI.create("http://localhost/api/junit"))
+                .attribute(RequestCompression.THRESHOLD_ATTRIBUTE, threshold)
+                .body(BodyInserters.fromValue(body))
+                .build();
+
+        RequestCompression.filter("direct", new SimpleMeterRegistry())
+                .filter(request, filtered -> {
+                    MockClientHttpRequest mock = new MockClientHttpRequest(filtered.method(), filtered.url());
+                    sent[0] = mock;
+                    return filtered.writeTo(mock, ExchangeStrategies.withDefaults())
+                            .then(Mono.just(ClientResponse.create(HttpStatus.OK).build()));
+                })
+                .block();
+        return sent[0];
+    }
+}
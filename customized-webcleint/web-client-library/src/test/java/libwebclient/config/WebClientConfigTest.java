@@ -1,11 +1,26 @@
 package libwebclient.config;
 
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.http.HttpHeaders;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import webclient.application.CustomizedWebClientRegistry;
 import webclient.config.WebClientConfig;
+import webclient.config.WebClientConnectionPool;
+import webclient.transport.ClientTransports;
+
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 class WebClientConfigTest {
     private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
@@ -23,6 +38,7 @@ class WebClientConfigTest {
                 run(
                         context -> {
                             Assertions.assertNotNull(context.getBean("webClientWithApim"));
+                            Assertions.assertNotNull(context.getBean("webClientWithApimConnectionPool", WebClientConnectionPool.class));
                         }
 
                 );
@@ -41,7 +57,7 @@ class WebClientConfigTest {
                 run(
                         context -> {
                             Assertions.assertNotNull(context.getBean("webClientWithDirectServer"));
-
+                            Assertions.assertNotNull(context.getBean("webClientWithDirectServerConnectionPool", WebClientConnectionPool.class));
                         }
 
                 );
@@ -145,4 +161,91 @@ class WebClientConfigTest {
 
                 );
     }
-}
\ No newline at end of file
+
+    @Test
+    void healthChecksAreAuthenticated() {
+        BlockingQueue<String> authorizations = new LinkedBlockingQueue<>();
+        DisposableServer server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.get("/actuator/health", (request, response) -> {
+                    authorizations.add(String.valueOf(request.requestHeaders().get(HttpHeaders.AUTHORIZATION)));
+                    return response.send();
+                }))
+                .bindNow();
+        try {
+            contextRunner.
+                    withPropertyValues("web.client.direct-server.enabled=true").
+                    withPropertyValues("web.client.direct-server.url=http://localhost:" + server.port()).
+                    withPropertyValues("web.client.direct-server.path.v1.uri=uri").
+                    withPropertyValues("web.client.direct-server.security.username=user").
+                    withPropertyValues("web.client.direct-server.security.password=secret").
+                    withPropertyValues("web.client.direct-server.endpoints[0].url=http://localhost:" + server.port()).
+                    withPropertyValues("web.client.direct-server.load-balancer.health-check.enabled=true").
+                    withBean(ReactiveOAuth2AuthorizedClientServiceMock.class).
+                    withConfiguration(AutoConfigurations.of(OAuth2TestConfig.class)).
+                    run(
+                            context -> {
+                                Assertions.assertNotNull(context.getBean("webClientWithDirectServer"));
+                                Assertions.assertEquals("Basic dXNlcjpzZWNyZXQ=", authorizations.poll(5, TimeUnit.SECONDS));
+                            }
+
+                    );
+        } finally {
+            server.disposeNow();
+        }
+    }
+
+    @Test
+    void theTransportOfAClientIsConfiguredOnce() {
+        Logger logger = (Logger) LoggerFactory.getLogger(ClientTransports.class);
+        ListAppender<ILoggingEvent> events = new ListAppender<>();
+        events.start();
+        logger.addAppender(events);
+        try {
+            contextRunner.
+                    withPropertyValues("web.client.direct-server.enabled=true").
+                    withPropertyValues("web.client.direct-server.url=clientUrl").
+                    withPropertyValues("web.client.direct-server.path.v1.uri=uri").
+                    withPropertyValues("web.client.backends.orders.enabled=true").
+                    withPropertyValues("web.client.backends.orders.url=ordersUrl").
+                    withPropertyValues("web.client.backends.orders.path.v1.uri=uri").
+                    withBean(ReactiveOAuth2AuthorizedClientServiceMock.class).
+                    withConfiguration(AutoConfigurations.of(OAuth2TestConfig.class)).
+                    run(
+                            context -> {
+                                Assertions.assertNotNull(context.getBean("webClientWithDirectServer"));
+                                Assertions.assertNotNull(context.getBean("webClientBackends"));
+                            }
+
+                    );
+        } finally {
+            logger.detachAppender(events);
+        }
+
+        Assertions.assertEquals(1, events.list.stream().filter(event -> event.getFormattedMessage().startsWith("Client direct ")).count());
+        Assertions.assertEquals(1, events.list.stream().filter(event -> event.getFormattedMessage().startsWith("Client orders ")).count());
+    }
+
+    @Test
+    void createWebClientBackends() {
+
+        contextRunner.
+                withPropertyValues("web.client.backends.orders.enabled=true").
+                withPropertyValues("web.client.backends.orders.url=ordersUrl").
+                withPropertyValues("web.client.backends.orders.path.v1.uri=uri").
+                withPropertyValues("web.client.backends.orders.pool.max-connections=20").
+                withPropertyValues("web.client.backends.orders.retry.max-attempts=1").
+                withPropertyValues("web.client.backends.stock.url=stockUrl").
+                withBean(ReactiveOAuth2AuthorizedClientServiceMock.class).
+                withConfiguration(AutoConfigurations.of(OAuth2TestConfig.class)).
+                run(
+                        context -> {
+                            CustomizedWebClientRegistry backends = context.getBean("webClientBackends", CustomizedWebClientRegistry.class);
+                            Assertions.assertEquals(Set.of("orders"), backends.getNames());
+                            Assertions.assertEquals("orders", backends.get("orders").getDirectServerName());
+                            Assertions.assertThrows(IllegalArgumentException.class, () -> backends.get("stock"));
+                        }
+
+                );
+    }
+}
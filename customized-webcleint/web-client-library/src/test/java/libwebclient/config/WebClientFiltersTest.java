@@ -0,0 +1,74 @@
+package libwebclient.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+import webclient.config.WebClientFilters;
+import webclient.config.WebClientProperties;
+
+import java.net.URI;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WebClientFiltersTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(WebClientFilters.class);
+    private final ListAppender<ILoggingEvent> events = new ListAppender<>();
+    private Level level;
+
+    @BeforeEach
+    void attach() {
+        level = logger.getLevel();
+        logger.setLevel(Level.WARN);
+        events.start();
+        logger.addAppender(events);
+    }
+
+    @AfterEach
+    void detach() {
+        logger.detachAppender(events);
+        logger.setLevel(level);
+    }
+
+    @Test
+    void errorsAreLoggedWhenTheLoggerIsAtWarn() {
+        exchange("ERRORS", HttpStatus.INTERNAL_SERVER_ERROR);
+        exchange("ERRORS_OR_SLOW", HttpStatus.SERVICE_UNAVAILABLE);
+
+        assertEquals(2, events.list.size());
+        assertEquals(Level.WARN, events.list.get(0).getLevel());
+    }
+
+    @Test
+    void slowExchangesAreNotLoggedWhenTheLoggerIsAtWarn() {
+        exchange("SLOW", HttpStatus.OK);
+        exchange("ALL", HttpStatus.OK);
+
+        assertEquals(0, events.list.size());
+    }
+
+    private static void exchange(String policy, HttpStatus status) {
+        ExchangeFilterFunction filter = WebClientFilters.logExchange(new Binder(new MapConfigurationPropertySource(Map.of(
+                "logging.policy", policy,
+                "logging.slow-threshold", "0s"
+        ))).bindOrCreate("logging", WebClientProperties.LoggingProperties.class));
+
+        filter.filter(ClientRequest.create(HttpMethod.GET, URI.create("http://localhost:8080/api/products")).build(),
+                        request -> Mono.just(ClientResponse.create(status).build()))
+                .block();
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import webclient.config.WebClientProperties;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -39,6 +40,11 @@ public class WebClientPropertiesTest {
         assertEquals(2, path.getProperties().size());
         assertEquals("p1", path.getProperties().get("property1"));
         assertEquals("p2", path.getProperties().get("property2"));
+        WebClientProperties.PathProperties.CacheProperties cache = path.getCache();
+        assertTrue(cache.getEnabled());
+        assertEquals(Long.valueOf(200), cache.getMaximumSize());
+        assertEquals(Duration.ofSeconds(30), cache.getDefaultTtl());
+        assertEquals(Duration.ofMinutes(1), cache.getStaleWhileRevalidate());
         WebClientProperties.DirectServerProperties.SecurityProperties security = server.getSecurity();
         assertNotNull(security);
         assertEquals("default", security.getUsername());
@@ -53,11 +59,42 @@ public class WebClientPropertiesTest {
         assertNotNull(security);
         assertEquals(Integer.valueOf(3000), timeoutProperties.getConnect());
         assertEquals(Integer.valueOf(10000), timeoutProperties.getRead());
+        WebClientProperties.PoolProperties poolProperties = server.getPool();
+        assertNotNull(poolProperties);
+        assertEquals(Integer.valueOf(50), poolProperties.getMaxConnections());
+        assertEquals(Integer.valueOf(200), poolProperties.getPendingAcquireMaxCount());
+        assertEquals(Duration.ofSeconds(5), poolProperties.getPendingAcquireTimeout());
+        assertEquals(Duration.ofSeconds(20), poolProperties.getMaxIdleTime());
+        assertEquals(Duration.ofMinutes(5), poolProperties.getMaxLifeTime());
+        assertEquals(Duration.ofSeconds(30), poolProperties.getEvictionInterval());
+        assertEquals(WebClientProperties.PoolProperties.LeasingStrategy.LIFO, poolProperties.getLeasingStrategy());
+        assertEquals(2, server.getEndpoints().size());
+        assertEquals("http://localhost:8080", server.getEndpoints().get(0).getUrl());
+        assertEquals(Integer.valueOf(3), server.getEndpoints().get(0).getWeight());
+        assertEquals(Integer.valueOf(1), server.getEndpoints().get(1).getWeight());
+        assertEquals("http://localhost:8080", server.getBaseUrl());
+        WebClientProperties.DirectServerProperties.LoadBalancerProperties loadBalancer = server.getLoadBalancer();
+        assertEquals(WebClientProperties.DirectServerProperties.LoadBalancerProperties.Strategy.WEIGHTED_ROUND_ROBIN, loadBalancer.getStrategy());
+        assertFalse(loadBalancer.getHealthCheck().getEnabled());
+        assertEquals(Integer.valueOf(3), loadBalancer.getOutlierEjection().getConsecutiveFailures());
+        assertEquals(Duration.ofSeconds(30), loadBalancer.getOutlierEjection().getEjectionTime());
+        WebClientProperties.LoggingProperties loggingProperties = server.getLogging();
+        assertNotNull(loggingProperties);
+        assertEquals(WebClientProperties.LoggingProperties.Policy.ERRORS_OR_SLOW, loggingProperties.getPolicy());
+        assertEquals(0.01, loggingProperties.getSampleRate());
+        assertEquals(Integer.valueOf(10), loggingProperties.getMaxPerSecond());
+        assertEquals(Duration.ofMillis(500), loggingProperties.getSlowThreshold());
+        assertTrue(loggingProperties.getWiretap());
 
         final WebClientProperties.ApimProperties apim = properties.getApim();
         assertTrue(apim.getEnabled());
         assertEquals("http://localhost:8280", apim.getUrl());
         assertEquals("TEST", apim.getHeaderMultiBackend());
+        assertNotNull(apim.getPool());
+        assertEquals(Integer.valueOf(500), apim.getPool().getMaxConnections());
+        assertEquals(WebClientProperties.PoolProperties.LeasingStrategy.FIFO, apim.getPool().getLeasingStrategy());
+        assertEquals(WebClientProperties.LoggingProperties.Policy.ALL, apim.getLogging().getPolicy());
+        assertFalse(apim.getLogging().getWiretap());
 
         Map<String, WebClientProperties.PathProperties> apimPaths = apim.getPath();
         assertNotNull(apimPaths);
@@ -67,9 +104,30 @@ public class WebClientPropertiesTest {
         assertEquals(2, apimPath.getProperties().size());
         assertEquals("a1", apimPath.getProperties().get("apimproperty1"));
         assertEquals("a2", apimPath.getProperties().get("apimproperty2"));
+        assertFalse(apimPath.getCache().getEnabled());
+        WebClientProperties.ProtocolProperties apimProtocol = properties.getApim().getProtocol();
+        assertEquals(WebClientProperties.ProtocolProperties.Version.H2_HTTP11, apimProtocol.getVersion());
+        assertTrue(apimProtocol.isHttp2());
+        assertEquals(Long.valueOf(250), apimProtocol.getMaxConcurrentStreams());
+        assertEquals(Integer.valueOf(1048576), apimProtocol.getInitialWindowSize());
+        assertEquals(Integer.valueOf(4), apimProtocol.getMaxConnections());
+        assertFalse(properties.getDirectServer().getProtocol().isHttp2());
+
+        final WebClientProperties.CodecProperties codec = properties.getDirectServer().getCodec();
+        assertEquals(List.of(WebClientProperties.CodecProperties.Format.CBOR, WebClientProperties.CodecProperties.Format.SMILE), codec.getFormats());
+        assertEquals(WebClientProperties.CodecProperties.Format.SMILE, codec.getPreferred());
+        assertEquals(WebClientProperties.CodecProperties.Format.CBOR, properties.getDirectServer().getPath().get("v1").getFormat());
+        assertTrue(apim.getCodec().getFormats().isEmpty());
+        assertEquals(WebClientProperties.CodecProperties.Format.JSON, apim.getCodec().getPreferred());
 
         final WebClientProperties.RetryConfigProperties retry = properties.getRetry();
         assertEquals(2, retry.getMaxAttempts());
         assertEquals(Duration.ofSeconds(1), retry.getMinBackoff());
+        assertEquals(Duration.ofSeconds(20), retry.getMaxBackoff());
+        assertEquals(WebClientProperties.RetryConfigProperties.Jitter.DECORRELATED, retry.getJitter());
+        assertFalse(retry.getRetryNonIdempotent());
+        assertTrue(retry.getBudget().getEnabled());
+        assertEquals(0.1, retry.getBudget().getRatio());
+        assertEquals(Integer.valueOf(20), retry.getBudget().getMaxTokens());
     }
 }
@@ -0,0 +1,79 @@
+package libwebclient.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import webclient.config.WebClientProperties;
+import webclient.loadbalancer.LoadBalancer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadBalancerTest {
+
+    private final List<String> calls = new ArrayList<>();
+
+    @Test
+    void weightedRoundRobinInterleavesTheEndpointsByWeight() {
+        LoadBalancer loadBalancer = loadBalancer(WebClientProperties.DirectServerProperties.LoadBalancerProperties.Strategy.WEIGHTED_ROUND_ROBIN);
+
+        for (int i = 0; i < 3; i++) {
+            send(loadBalancer, request -> Mono.just(ClientResponse.create(HttpStatus.OK).build()));
+        }
+
+        assertEquals(Arrays.asList(
+                "http://server1:8080/api/junit?id=1",
+                "http://server2:8080/api/junit?id=1",
+                "http://server1:8080/api/junit?id=1"), calls);
+    }
+
+    @Test
+    void anEndpointFailingInARowIsEjected() {
+        LoadBalancer loadBalancer = loadBalancer(WebClientProperties.DirectServerProperties.LoadBalancerProperties.Strategy.P2C_LEAST_OUTSTANDING);
+        ExchangeFunction server2Down = request -> Mono.just(ClientResponse.create(
+                request.url().getHost().equals("server2") ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.OK).build());
+
+        for (int i = 0; i < 40; i++) {
+            send(loadBalancer, server2Down);
+        }
+        calls.clear();
+        for (int i = 0; i < 40; i++) {
+            send(loadBalancer, server2Down);
+        }
+
+        assertTrue(calls.stream().allMatch(url -> url.startsWith("http://server1:8080")), calls.toString());
+    }
+
+    private void send(LoadBalancer loadBalancer, ExchangeFunction server) {
+        ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://server1:8080/api/junit?id=1")).build();
+        loadBalancer.filter()
+                .filter(request, routed -> {
+                    calls.add(routed.url().toString());
+                    return server.exchange(routed);
+                })
+                .block();
+    }
+
+    private static LoadBalancer loadBalancer(WebClientProperties.DirectServerProperties.LoadBalancerProperties.Strategy strategy) {
+        return new LoadBalancer("direct", "http://server1:8080/",
+                Arrays.asList(
+                        new WebClientProperties.DirectServerProperties.EndpointProperties("http://server1:8080", 2),
+                        new WebClientProperties.DirectServerProperties.EndpointProperties("http://server2:8080", 1)),
+                new WebClientProperties.DirectServerProperties.LoadBalancerProperties(strategy, Duration.ofSeconds(10),
+                        new WebClientProperties.DirectServerProperties.LoadBalancerProperties.HealthCheckProperties(false, "/health", Duration.ofSeconds(10), Duration.ofSeconds(1)),
+                        new WebClientProperties.DirectServerProperties.LoadBalancerProperties.OutlierEjectionProperties(true, 3, Duration.ofMinutes(1), 50)),
+                null,
+                new SimpleMeterRegistry());
+    }
+}
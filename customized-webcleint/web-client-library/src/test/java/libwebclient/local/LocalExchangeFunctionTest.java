@@ -0,0 +1,111 @@
+package libwebclient.local;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunctions;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import webclient.application.CustomizedWebClient;
+import webclient.config.WebClientProperties;
+import webclient.local.LocalClientHttpConnector;
+import webclient.local.LocalExchangeFunction;
+import webclient.metrics.WebClientMetrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+
+class LocalExchangeFunctionTest {
+
+    private final WebClientProperties properties = new Binder(new MapConfigurationPropertySource(Map.of(
+            "web.client.direct-server.url", "http://localhost:8080",
+            "web.client.direct-server.path.products.uri", "/api/products",
+            "web.client.direct-server.path.products.local", "true",
+            "web.client.direct-server.path.stock.uri", "/api/stock",
+            "web.client.direct-server.path.stock.local", "true",
+            "web.client.retry.max-attempts", "2",
+            "web.client.retry.min-backoff", "1ms",
+            "web.client.retry.jitter", "NONE"
+    ))).bind("web.client", WebClientProperties.class).get();
+
+    private final AtomicInteger remoteRequests = new AtomicInteger();
+    private final AtomicInteger stockRequests = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final HttpHandler handler = RouterFunctions.toHttpHandler(RouterFunctions
+            .route(POST("/api/products"), request -> request.bodyToMono(Product.class)
+                    .flatMap(product -> ServerResponse.ok().bodyValue(product)))
+            .andRoute(GET("/api/stock"), request -> stockRequests.incrementAndGet() == 1
+                    ? ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).build()
+                    : ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue("{\"productId\":42,\"name\":\"in stock\"}")));
+
+    private final CustomizedWebClient client = new CustomizedWebClient(null,
+            WebClient.builder()
+                    .baseUrl("http://localhost:8080")
+                    .exchangeFunction(new LocalExchangeFunction(
+                            request -> {
+                                remoteRequests.incrementAndGet();
+                                return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+                            },
+                            ExchangeFunctions.create(new LocalClientHttpConnector(() -> handler), ExchangeStrategies.withDefaults()),
+                            LocalExchangeFunction.localPaths(properties.getDirectServer().getPath())))
+                    .filter(new WebClientMetrics(meterRegistry).filter(CustomizedWebClient.DIRECT_SERVER))
+                    .build(),
+            properties,
+            meterRegistry);
+
+    @Test
+    void aLocalPathIsHandledInMemory() {
+        StepVerifier.create(client.post(new Product(42L, "keyboard"), Product.class, "/api/products", null, null))
+                .expectNextMatches(product -> product.productId == 42L && product.name.equals("keyboard"))
+                .verifyComplete();
+
+        assertEquals(0, remoteRequests.get());
+        assertEquals(1, meterRegistry.get(WebClientMetrics.REQUESTS).tag("path", "products").timer().count());
+    }
+
+    @Test
+    void theOtherPathsGoThroughTheNetwork() {
+        StepVerifier.create(client.get(String.class, "/api/orders", new LinkedMultiValueMap<>(), null))
+                .verifyComplete();
+
+        assertEquals(1, remoteRequests.get());
+    }
+
+    @Test
+    void aLocalCallIsRetried() {
+        StepVerifier.create(client.getAndRetry(Product.class, "/api/stock", new LinkedMultiValueMap<>(), null))
+                .expectNextMatches(product -> product.name.equals("in stock"))
+                .verifyComplete();
+
+        assertEquals(2, stockRequests.get());
+        assertEquals(0, remoteRequests.get());
+    }
+
+    static class Product {
+        public Long productId;
+        public String name;
+
+        Product() {
+        }
+
+        Product(Long productId, String name) {
+            this.productId = productId;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package libwebclient.oauth2;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import webclient.config.WebClientProperties;
+import webclient.oauth2.ApimTokenManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ApimTokenManagerTest {
+
+    private static final ClientRegistration REGISTRATION = ClientRegistration.withRegistrationId("apim")
+            .clientId("apim")
+            .clientSecret("secret")
+            .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+            .tokenUri("http://localhost/token")
+            .build();
+
+    private static final OAuth2AuthorizeRequest REQUEST = OAuth2AuthorizeRequest.withClientRegistrationId("apim")
+            .principal("anonymousUser")
+            .build();
+
+    private final WebClientProperties.ApimProperties.TokenProperties properties =
+            new WebClientProperties.ApimProperties.TokenProperties(Duration.ofSeconds(60), Duration.ofSeconds(5));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private ApimTokenManager manager;
+
+    @AfterEach
+    void dispose() {
+        manager.dispose();
+    }
+
+    @Test
+    void concurrentAcquisitionsShareOneFetch() {
+        manager = manager(fetch -> Mono.delay(Duration.ofMillis(50)).thenReturn(client("t" + fetch, Duration.ofHours(1))));
+
+        List<OAuth2AuthorizedClient> clients = Flux.range(0, 20)
+                .flatMap(i -> manager.authorize(REQUEST))
+                .collectList()
+                .block();
+
+        assertEquals(1, fetches.get());
+        assertEquals(20, clients.size());
+        clients.forEach(client -> assertEquals("t1", client.getAccessToken().getTokenValue()));
+        assertEquals(1, meterRegistry.get(ApimTokenManager.FETCH).tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void theCurrentTokenIsServedWhileItIsRefreshed() throws InterruptedException {
+        manager = manager(fetch -> fetch == 1
+                ? Mono.just(client("t1", Duration.ofSeconds(30)))
+                : Mono.delay(Duration.ofMillis(50)).thenReturn(client("t" + fetch, Duration.ofHours(1))));
+
+        StepVerifier.create(manager.authorize(REQUEST))
+                .expectNextMatches(client -> client.getAccessToken().getTokenValue().equals("t1"))
+                .verifyComplete();
+
+        // the first token expires within the skew, it is still served and a refresh runs in the background
+        StepVerifier.create(manager.authorize(REQUEST))
+                .expectNextMatches(client -> client.getAccessToken().getTokenValue().equals("t1"))
+                .verifyComplete();
+
+        String token = "t1";
+        for (int i = 0; i < 100 && token.equals("t1"); i++) {
+            Thread.sleep(20);
+            token = manager.authorize(REQUEST).block().getAccessToken().getTokenValue();
+        }
+        assertEquals("t2", token);
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void aFailedFetchIsRecordedAndTheNextAcquisitionFetchesAgain() {
+        manager = manager(fetch -> fetch == 1
+                ? Mono.error(new OAuth2AuthorizationException(new OAuth2Error("server_error")))
+                : Mono.just(client("t" + fetch, Duration.ofHours(1))));
+
+        StepVerifier.create(manager.authorize(REQUEST))
+                .expectError(OAuth2AuthorizationException.class)
+                .verify();
+        StepVerifier.create(manager.authorize(REQUEST))
+                .expectNextMatches(client -> client.getAccessToken().getTokenValue().equals("t2"))
+                .verifyComplete();
+
+        assertEquals(1, meterRegistry.get(ApimTokenManager.FETCH).tag("outcome", "failure").timer().count());
+        assertEquals(1, meterRegistry.get(ApimTokenManager.FETCH).tag("outcome", "success").timer().count());
+    }
+
+    private ApimTokenManager manager(Function<Integer, Mono<OAuth2AuthorizedClient>> tokenEndpoint) {
+        return new ApimTokenManager(request -> Mono.defer(() -> tokenEndpoint.apply(fetches.incrementAndGet())), properties, meterRegistry);
+    }
+
+    private static OAuth2AuthorizedClient client(String token, Duration lifetime) {
+        Instant now = Instant.now();
+        return new OAuth2AuthorizedClient(REGISTRATION, "anonymousUser",
+                new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, token, now, now.plus(lifetime)));
+    }
+}
@@ -0,0 +1,74 @@
+package libwebclient.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import webclient.config.WebClientProperties;
+import webclient.resilience.AdaptiveConcurrencyLimiter;
+import webclient.resilience.ConcurrencyLimitExceededException;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("direct",
+            new WebClientProperties.ConcurrencyLimitProperties(true, WebClientProperties.ConcurrencyLimitProperties.Algorithm.AIMD,
+                    2, 1, 10, 1, Duration.ofMillis(200), 0.5, Duration.ofSeconds(2), 0.2),
+            meterRegistry);
+
+    @Test
+    void callsOverTheLimitWaitThenAreRejectedWhenTheQueueIsFull() {
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+        limiter.limit(first.asMono()).subscribe();
+        limiter.limit(second.asMono()).subscribe();
+
+        StepVerifier.create(limiter.limit(Mono.just("queued")))
+                .then(() -> StepVerifier.create(limiter.limit(Mono.just("rejected")))
+                        .expectError(ConcurrencyLimitExceededException.class)
+                        .verify())
+                .then(() -> first.tryEmitValue("first"))
+                .expectNext("queued")
+                .verifyComplete();
+        second.tryEmitValue("second");
+    }
+
+    @Test
+    void aWaitingCallIsRejectedAfterTheMaxQueueWait() {
+        limiter.limit(Mono.never()).subscribe();
+        limiter.limit(Mono.never()).subscribe();
+
+        StepVerifier.create(limiter.limit(Mono.just("late")))
+                .expectError(ConcurrencyLimitExceededException.class)
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void theLimitGrowsOnSuccessAndShrinksOnDrop() {
+        StepVerifier.create(Mono.zip(limiter.limit(Mono.just(1)), limiter.limit(Mono.just(2))))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertEquals(3, limiter.getLimit());
+
+        StepVerifier.create(limiter.limit(Mono.error(new IOException("connection reset"))))
+                .expectError(IOException.class)
+                .verify();
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    void aCancelAfterTheValueReleasesThePermitOnce() {
+        // take(1) cancels the call once its value is received
+        StepVerifier.create(limiter.limit(Mono.just("product")).flux().take(1))
+                .expectNext("product")
+                .verifyComplete();
+
+        assertEquals(0, meterRegistry.get(AdaptiveConcurrencyLimiter.IN_FLIGHT).gauge().value());
+    }
+}
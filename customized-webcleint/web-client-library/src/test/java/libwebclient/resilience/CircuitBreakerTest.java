@@ -0,0 +1,62 @@
+package libwebclient.resilience;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import webclient.config.WebClientProperties;
+import webclient.resilience.CircuitBreaker;
+import webclient.resilience.CircuitBreakerOpenException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CircuitBreakerTest {
+
+    private final List<CircuitBreaker.State> transitions = new ArrayList<>();
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("direct:v1",
+            new WebClientProperties.CircuitBreakerProperties(true, 4, 4, 50, 100,
+                    Duration.ofSeconds(5), Duration.ofMillis(50), 1),
+            (from, to) -> transitions.add(to));
+
+    @Test
+    void opensOnFailureRateThenClosesAfterASuccessfulProbe() throws InterruptedException {
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(circuitBreaker.decorate(Mono.error(new IOException("connection refused"))))
+                    .expectError(IOException.class)
+                    .verify();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        AtomicInteger subscriptions = new AtomicInteger();
+        StepVerifier.create(circuitBreaker.decorate(Mono.fromCallable(subscriptions::incrementAndGet)))
+                .expectError(CircuitBreakerOpenException.class)
+                .verify();
+        assertEquals(0, subscriptions.get());
+
+        Thread.sleep(100);
+
+        StepVerifier.create(circuitBreaker.decorate(Mono.just("probe")))
+                .expectNext("probe")
+                .verifyComplete();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(List.of(CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN, CircuitBreaker.State.CLOSED), transitions);
+    }
+
+    @Test
+    void clientErrorsAreNotFailures() {
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(circuitBreaker.decorate(Mono.error(
+                    WebClientResponseException.create(404, "Not Found", null, null, null))))
+                    .expectError()
+                    .verify();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+}
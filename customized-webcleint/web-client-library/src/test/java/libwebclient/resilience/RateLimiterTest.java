@@ -0,0 +1,51 @@
+package libwebclient.resilience;
+
+import org.junit.jupiter.api.Test;
+import webclient.config.WebClientProperties;
+import webclient.resilience.RateLimiter;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    @Test
+    void theBurstIsServedAtOnceThenTheCallsWaitForTheRefill() {
+        RateLimiter rateLimiter = new RateLimiter("direct:v1", new WebClientProperties.RateLimitProperties(true, 10, Duration.ofSeconds(1), 2,
+                WebClientProperties.RateLimitProperties.Mode.WAIT, Duration.ofMillis(250)));
+
+        assertEquals(0, rateLimiter.reserve());
+        assertEquals(0, rateLimiter.reserve());
+
+        long wait = rateLimiter.reserve();
+        assertTrue(wait > 0 && wait <= TimeUnit.MILLISECONDS.toNanos(100), "one permit every 100ms");
+        long secondWait = rateLimiter.reserve();
+        assertTrue(secondWait > wait, "the waits add up");
+        assertEquals(RateLimiter.REJECTED, rateLimiter.reserve(), "longer than the max wait");
+    }
+
+    @Test
+    void failFastRejectsWhenTheBucketIsEmpty() {
+        RateLimiter rateLimiter = new RateLimiter("apim", new WebClientProperties.RateLimitProperties(true, 1, Duration.ofMinutes(1), 1,
+                WebClientProperties.RateLimitProperties.Mode.FAIL_FAST, Duration.ofSeconds(1)));
+
+        assertEquals(0, rateLimiter.reserve());
+        assertEquals(RateLimiter.REJECTED, rateLimiter.reserve());
+
+        rateLimiter.release();
+        assertEquals(0, rateLimiter.reserve());
+    }
+
+    @Test
+    void aThrottleEmptiesTheBucketForTheRetryAfter() {
+        RateLimiter rateLimiter = new RateLimiter("apim", new WebClientProperties.RateLimitProperties(true, 100, Duration.ofSeconds(1), 100,
+                WebClientProperties.RateLimitProperties.Mode.WAIT, Duration.ofSeconds(5)));
+
+        rateLimiter.throttle(Duration.ofSeconds(2));
+
+        assertTrue(rateLimiter.reserve() > TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,157 @@
+package libwebclient.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import webclient.application.WebClientCall;
+import webclient.config.WebClientProperties;
+import webclient.resilience.RequestHedger;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestHedgerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestHedger hedger = new RequestHedger(meterRegistry);
+
+    private final AtomicInteger subscriptions = new AtomicInteger();
+    private final AtomicInteger cancellations = new AtomicInteger();
+
+    @Test
+    void onlyGetCallsOfAHedgedPathAreHedged() {
+        WebClientCall call = call(Map.of());
+
+        assertTrue(RequestHedger.isEnabled(call));
+        assertFalse(RequestHedger.isEnabled(call.toBuilder().method(HttpMethod.POST).build()));
+        assertFalse(RequestHedger.isEnabled(call(Map.of("path.hedge.enabled", "false"))));
+    }
+
+    @Test
+    void theHedgeIsSentAfterTheDelayAndTheLoserIsCancelled() {
+        WebClientCall call = call(Map.of());
+        Mono<String> attempt = attempt(Mono.never(), Mono.delay(Duration.ofMillis(10)).thenReturn("hedge"));
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge(call, attempt))
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(99))
+                .then(() -> assertEquals(1, subscriptions.get()))
+                .thenAwait(Duration.ofMillis(1))
+                .then(() -> assertEquals(2, subscriptions.get()))
+                .thenAwait(Duration.ofMillis(10))
+                .expectNext("hedge")
+                .verifyComplete();
+
+        assertEquals(1, cancellations.get());
+        assertEquals(1, count("sent"));
+        assertEquals(1, count("won"));
+    }
+
+    @Test
+    void noHedgeIsSentWhenTheFirstAttemptAnswersInTime() {
+        WebClientCall call = call(Map.of());
+        Mono<String> attempt = attempt(Mono.delay(Duration.ofMillis(50)).thenReturn("primary"), Mono.just("hedge"));
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge(call, attempt))
+                .thenAwait(Duration.ofMillis(50))
+                .expectNext("primary")
+                .verifyComplete();
+
+        assertEquals(1, subscriptions.get());
+        assertTrue(meterRegistry.find(RequestHedger.HEDGES).counters().isEmpty());
+    }
+
+    @Test
+    void aFailedHedgeLetsTheFirstAttemptWin() {
+        WebClientCall call = call(Map.of());
+        Mono<String> attempt = attempt(Mono.delay(Duration.ofMillis(200)).thenReturn("primary"),
+                Mono.error(WebClientResponseException.create(503, "Service Unavailable", null, null, null)));
+
+        StepVerifier.withVirtualTime(() -> hedger.hedge(call, attempt))
+                .thenAwait(Duration.ofMillis(100))
+                .then(() -> assertEquals(2, subscriptions.get()))
+                .expectNoEvent(Duration.ofMillis(99))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext("primary")
+                .verifyComplete();
+
+        assertEquals(1, count("sent"));
+    }
+
+    @Test
+    void hedgesStayWithinTheOutstandingBudget() {
+        WebClientCall call = call(Map.of("path.hedge.max-outstanding", "1"));
+        Mono<String> attempt = Mono.defer(() -> {
+            subscriptions.incrementAndGet();
+            return Mono.delay(Duration.ofSeconds(1)).thenReturn("product");
+        });
+
+        StepVerifier.withVirtualTime(() -> Mono.zip(hedger.hedge(call, attempt), hedger.hedge(call, attempt)))
+                .thenAwait(Duration.ofMillis(150))
+                // two first attempts and a single hedge
+                .then(() -> assertEquals(3, subscriptions.get()))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(1, count("sent"));
+    }
+
+    @Test
+    void theObservedPercentileReplacesTheFixedDelay() {
+        WebClientCall call = call(Map.of("path.hedge.percentile", "0.95"));
+
+        // latencies of immediate answers, far below the fixed delay
+        for (int i = 0; i < 32; i++) {
+            hedger.hedge(call, Mono.just("fast")).block();
+        }
+
+        Mono<String> attempt = attempt(Mono.never(), Mono.just("hedge"));
+        StepVerifier.withVirtualTime(() -> hedger.hedge(call, attempt))
+                .thenAwait(Duration.ofMillis(50))
+                .expectNext("hedge")
+                .verifyComplete();
+    }
+
+    /**
+     * @return an attempt answering with first on its first subscription, with hedge on the next ones
+     */
+    private Mono<String> attempt(Mono<String> first, Mono<String> hedge) {
+        return Mono.defer(() -> subscriptions.incrementAndGet() == 1
+                ? first.doOnCancel(cancellations::incrementAndGet)
+                : hedge.doOnCancel(cancellations::incrementAndGet));
+    }
+
+    private static WebClientCall call(Map<String, String> hedge) {
+        Map<String, String> source = new HashMap<>(Map.of(
+                "path.uri", "/api/products",
+                "path.hedge.enabled", "true",
+                "path.hedge.delay", "100ms"
+        ));
+        source.putAll(hedge);
+
+        return WebClientCall.builder()
+                .client("direct")
+                .method(HttpMethod.GET)
+                .path("/api/products")
+                .pathKey("products")
+                .pathProperties(new Binder(new MapConfigurationPropertySource(source))
+                        .bindOrCreate("path", WebClientProperties.PathProperties.class))
+                .build();
+    }
+
+    private double count(String result) {
+        return meterRegistry.get(RequestHedger.HEDGES).tag("result", result).counter().count();
+    }
+}
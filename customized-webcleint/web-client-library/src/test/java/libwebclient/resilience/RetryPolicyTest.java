@@ -0,0 +1,87 @@
+package libwebclient.resilience;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import webclient.config.WebClientProperties;
+import webclient.resilience.RetryBudget;
+import webclient.resilience.RetryPolicy;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+
+    private static WebClientProperties.RetryConfigProperties retryProperties(int maxTokens) {
+        return new WebClientProperties.RetryConfigProperties(3, Duration.ofMillis(1), Duration.ofMillis(10),
+                WebClientProperties.RetryConfigProperties.Jitter.FULL, false,
+                new WebClientProperties.RetryConfigProperties.BudgetProperties(true, 0.5, maxTokens));
+    }
+
+    @Test
+    void classifyFailures() {
+        assertTrue(RetryPolicy.isTransient(WebClientResponseException.create(503, "Service Unavailable", null, null, null)));
+        assertTrue(RetryPolicy.isTransient(WebClientResponseException.create(429, "Too Many Requests", null, null, null)));
+        assertFalse(RetryPolicy.isTransient(WebClientResponseException.create(400, "Bad Request", null, null, null)));
+        assertFalse(RetryPolicy.isTransient(WebClientResponseException.create(404, "Not Found", null, null, null)));
+
+        WebClientRequestException connectError = new WebClientRequestException(new ConnectException("refused"),
+                HttpMethod.POST, URI.create("http://localhost"), new HttpHeaders());
+        assertTrue(RetryPolicy.isTransient(connectError));
+        assertTrue(RetryPolicy.isNotSent(connectError));
+        assertFalse(RetryPolicy.isNotSent(WebClientResponseException.create(503, "Service Unavailable", null, null, null)));
+    }
+
+    @Test
+    void postIsNotRetriedOnceSent() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(WebClientResponseException.create(503, "Service Unavailable", null, null, null));
+        });
+
+        StepVerifier.create(call.retryWhen(new RetryPolicy(retryProperties(20)).retry(HttpMethod.POST, () -> {
+                })))
+                .expectError(WebClientResponseException.class)
+                .verify();
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void getIsRetriedUntilMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(WebClientResponseException.create(503, "Service Unavailable", null, null, null));
+        });
+
+        StepVerifier.create(call.retryWhen(new RetryPolicy(retryProperties(20)).retry(HttpMethod.GET, () -> {
+                })))
+                .expectError(WebClientResponseException.class)
+                .verify(Duration.ofSeconds(5));
+        assertEquals(4, attempts.get());
+    }
+
+    @Test
+    void budgetLimitsRetriesToAFractionOfSuccesses() {
+        RetryBudget budget = new RetryBudget(new WebClientProperties.RetryConfigProperties.BudgetProperties(true, 0.5, 1));
+
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+
+        budget.deposit();
+        assertFalse(budget.tryWithdraw());
+        budget.deposit();
+        assertTrue(budget.tryWithdraw());
+    }
+}
@@ -0,0 +1,92 @@
+package libwebclient.timeout;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import libwebclient.application.TestWebClients;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import webclient.application.CustomizedWebClient;
+import webclient.config.WebClientProperties;
+import webclient.timeout.CallTimeouts;
+import webclient.timeout.DeadlineExceededException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CallTimeoutsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> deadlines = new CopyOnWriteArrayList<>();
+
+    @Test
+    void theDeadlineStopsTheRetries() {
+        CustomizedWebClient client = client(Map.of("web.client.direct-server.call-timeout.deadline", "300ms"),
+                request -> Mono.delay(Duration.ofMillis(20))
+                        .thenReturn(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build()));
+
+        StepVerifier.create(client.getAndRetry(String.class, "/api/products", new LinkedMultiValueMap<>(), MediaType.APPLICATION_JSON))
+                .expectError(DeadlineExceededException.class)
+                .verify(Duration.ofSeconds(5));
+
+        assertTrue(deadlines.size() < 10, "attempts " + deadlines.size());
+        assertEquals(1, meterRegistry.get(CallTimeouts.EXCEEDED).counter().count());
+    }
+
+    @Test
+    void theRemainingTimeIsSentToTheServer() {
+        CustomizedWebClient client = client(Map.of("web.client.direct-server.path.products.timeout.deadline", "2s"),
+                request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body("\"ok\"")
+                        .build()));
+
+        StepVerifier.create(client.get(String.class, "/api/products", new LinkedMultiValueMap<>(), MediaType.APPLICATION_JSON))
+                .expectNext("\"ok\"")
+                .verifyComplete();
+
+        long remaining = Long.parseLong(deadlines.get(0));
+        assertTrue(remaining > 0 && remaining <= 2000, "remaining " + remaining);
+    }
+
+    @Test
+    void aCallWaitingForAConnectionTimesOut() {
+        CustomizedWebClient client = client(Map.of("web.client.direct-server.path.products.timeout.pending-acquire", "50ms"),
+                request -> Mono.never());
+
+        StepVerifier.create(client.get(String.class, "/api/products", new LinkedMultiValueMap<>(), MediaType.APPLICATION_JSON))
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
+    }
+
+    private CustomizedWebClient client(Map<String, String> overrides, ExchangeFunction server) {
+        WebClientProperties properties = TestWebClients.properties(Map.of(
+                "web.client.direct-server.path.products.uri", "/api/products",
+                "web.client.retry.max-attempts", "10",
+                "web.client.retry.min-backoff", "50ms",
+                "web.client.retry.jitter", "NONE"
+        ), overrides);
+
+        CallTimeouts timeouts = new CallTimeouts(CustomizedWebClient.DIRECT_SERVER, properties.getDirectServer().getCallTimeout(),
+                properties.getDirectServer().getPath(), meterRegistry);
+        WebClient.Builder webClient = WebClient.builder()
+                .filter(timeouts.filter())
+                .exchangeFunction(request -> {
+                    deadlines.add(String.valueOf(request.headers().getFirst("X-Request-Timeout")));
+                    return server.exchange(request);
+                });
+        return TestWebClients.client(properties, webClient, meterRegistry);
+    }
+}
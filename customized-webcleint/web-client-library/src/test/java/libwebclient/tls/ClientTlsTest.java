@@ -0,0 +1,94 @@
+package libwebclient.tls;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.Http11SslContextSpec;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import webclient.config.WebClientProperties;
+import webclient.tls.ClientTls;
+
+import javax.net.ssl.KeyManagerFactory;
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ClientTlsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WebClientProperties.ProtocolProperties protocol = new Binder(new MapConfigurationPropertySource(Map.of()))
+            .bindOrCreate("protocol", WebClientProperties.ProtocolProperties.class);
+    private DisposableServer server;
+
+    @AfterEach
+    void dispose() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    @Test
+    void theClientIsUnchangedWhenTlsIsNotEnabled() {
+        HttpClient httpClient = HttpClient.create();
+
+        assertSame(httpClient, ClientTls.configure(httpClient, "direct", tls(Map.of()), protocol, meterRegistry));
+    }
+
+    @Test
+    void aFailedHandshakeIsTimed() throws Exception {
+        KeyManagerFactory keyManagerFactory = keyManagerFactory();
+        server = HttpServer.create()
+                .port(0)
+                .secure(spec -> spec.sslContext(Http11SslContextSpec.forServer(keyManagerFactory)))
+                .handle((request, response) -> response.sendString(Mono.just("pong")))
+                .bindNow();
+
+        HttpClient httpClient = ClientTls.configure(HttpClient.create(), "direct", tls(Map.of(
+                "tls.enabled", "true",
+                "tls.provider", "JDK",
+                "tls.protocols", "TLSv1.2,TLSv1.3",
+                "tls.session-cache-size", "100",
+                "tls.session-timeout", "10m")), protocol, meterRegistry);
+
+        // the self signed certificate is not trusted
+        assertThrows(Exception.class, () -> httpClient.get()
+                .uri("https://localhost:" + server.port() + "/ping")
+                .responseContent()
+                .aggregate()
+                .asString()
+                .block(Duration.ofSeconds(5)));
+
+        assertEquals(1, meterRegistry.get(ClientTls.HANDSHAKE)
+                .tags("client", "direct", "provider", "jdk", "outcome", "failure")
+                .timer()
+                .count());
+    }
+
+    /**
+     * the self signed certificate of localhost, generated once with keytool so that no certificate is generated at runtime
+     */
+    private static KeyManagerFactory keyManagerFactory() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream stream = ClientTlsTest.class.getResourceAsStream("/tls/server.p12")) {
+            keyStore.load(stream, "changeit".toCharArray());
+        }
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, "changeit".toCharArray());
+        return keyManagerFactory;
+    }
+
+    private static WebClientProperties.TlsProperties tls(Map<String, String> tls) {
+        return new Binder(new MapConfigurationPropertySource(tls))
+                .bindOrCreate("tls", WebClientProperties.TlsProperties.class);
+    }
+}
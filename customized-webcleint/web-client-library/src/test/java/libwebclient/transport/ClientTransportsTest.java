@@ -0,0 +1,123 @@
+package libwebclient.transport;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.channel.socket.SocketChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+import webclient.config.WebClientProperties;
+import webclient.transport.ClientTransports;
+import webclient.transport.NativeTransport;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientTransportsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ClientTransports transports = new ClientTransports(meterRegistry);
+    private final DisposableServer server = HttpServer.create()
+            .port(0)
+            .handle((request, response) -> response.sendString(Mono.just("pong")))
+            .bindNow();
+
+    @AfterEach
+    void dispose() {
+        server.disposeNow();
+        transports.dispose();
+    }
+
+    @Test
+    void aDedicatedClientRunsOnItsOwnLoops() {
+        WebClientProperties.TransportProperties properties = transport(Map.of(
+                "transport.type", "NIO",
+                "transport.loops", "DEDICATED",
+                "transport.worker-count", "2",
+                "transport.dns.enabled", "true"));
+
+        String thread = transports.configure(HttpClient.create(), "direct", properties)
+                .get()
+                .uri("http://localhost:" + server.port() + "/ping")
+                .responseSingle((response, body) -> body.asString().map(text -> text + ' ' + Thread.currentThread().getName()))
+                .block(Duration.ofSeconds(5));
+
+        assertTrue(thread.startsWith("pong webclient-direct"), thread);
+        assertEquals(1.0, meterRegistry.get(ClientTransports.TRANSPORT)
+                .tags("client", "direct", "transport", "nio", "loops", "dedicated").gauge().value());
+        assertNotNull(meterRegistry.find(ClientTransports.PENDING_TASKS).tag("loops", "webclient-direct").gauge());
+    }
+
+    @Test
+    void theSharedLoopsAreCreatedOnce() {
+        WebClientProperties.TransportProperties properties = transport(Map.of("transport.type", "NIO", "transport.loops", "SHARED"));
+
+        transports.configure(HttpClient.create(), "apim", properties);
+        transports.configure(HttpClient.create(), "direct", properties);
+
+        assertEquals(1, meterRegistry.find(ClientTransports.PENDING_TASKS).gauges().size());
+        assertEquals(NativeTransport.NIO, NativeTransport.resolve(WebClientProperties.TransportProperties.Type.NIO));
+    }
+
+    @Test
+    void aClientAskingForOtherSharedLoopsIsWarned() {
+        Logger logger = (Logger) LoggerFactory.getLogger(ClientTransports.class);
+        ListAppender<ILoggingEvent> events = new ListAppender<>();
+        events.start();
+        logger.addAppender(events);
+        try {
+            transports.configure(HttpClient.create(), "apim",
+                    transport(Map.of("transport.type", "NIO", "transport.loops", "SHARED", "transport.worker-count", "2")));
+            transports.configure(HttpClient.create(), "direct",
+                    transport(Map.of("transport.type", "NIO", "transport.loops", "SHARED", "transport.worker-count", "2")));
+            transports.configure(HttpClient.create(), "orders",
+                    transport(Map.of("transport.type", "NIO", "transport.loops", "SHARED", "transport.worker-count", "4")));
+        } finally {
+            logger.detachAppender(events);
+        }
+
+        List<ILoggingEvent> warnings = events.list.stream()
+                .filter(event -> event.getLevel() == Level.WARN)
+                .collect(Collectors.toList());
+        assertEquals(1, warnings.size());
+        assertTrue(warnings.get(0).getFormattedMessage().startsWith("Client orders asks for the shared loops"));
+    }
+
+    @Test
+    void theGlobalTransportIsTheOneOfReactorNetty() {
+        LoopResources global = LoopResources.create("global", 1, LoopResources.DEFAULT_NATIVE);
+        try {
+            String channel = global.onChannel(SocketChannel.class, global.onClient(LoopResources.DEFAULT_NATIVE))
+                    .getClass()
+                    .getSimpleName();
+
+            assertEquals(channel.replace("SocketChannel", "").toLowerCase(Locale.ROOT),
+                    NativeTransport.global().getTag().replace("_", ""));
+        } finally {
+            global.dispose();
+        }
+    }
+
+    private static WebClientProperties.TransportProperties transport(Map<String, String> transport) {
+        return new Binder(new MapConfigurationPropertySource(transport))
+                .bind("transport", WebClientProperties.TransportProperties.class)
+                .get();
+    }
+}
@@ -0,0 +1,141 @@
+package libwebclient.warmup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import libwebclient.application.TestWebClients;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import webclient.application.CustomizedWebClient;
+import webclient.application.CustomizedWebClientRegistry;
+import webclient.config.WebClientProperties;
+import webclient.loadbalancer.LoadBalancer;
+import webclient.warmup.WebClientWarmUp;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WebClientWarmUpTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger heads = new AtomicInteger();
+    private final AtomicInteger gets = new AtomicInteger();
+
+    @Test
+    void connectionsAreOpenedThenThePathsAreCalled() {
+        WebClientWarmUp warmUp = warmUp(Map.of(), request -> {
+            (request.method() == HttpMethod.HEAD ? heads : gets).incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body("{\"id\":1}")
+                    .build());
+        });
+
+        warmUp.run(null);
+
+        assertEquals(3, heads.get());
+        assertEquals(2, gets.get());
+        assertEquals(1, meterRegistry.get(WebClientWarmUp.DURATION).tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void aFailingServerDoesNotFailTheWarmUp() {
+        WebClientWarmUp warmUp = warmUp(Map.of(), request -> {
+            gets.incrementAndGet();
+            return Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+        });
+
+        warmUp.run(null);
+
+        assertEquals(5, gets.get());
+        assertEquals(1, meterRegistry.get(WebClientWarmUp.DURATION).tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void theWarmUpIsAbandonedAfterItsTimeout() {
+        WebClientWarmUp warmUp = warmUp(Map.of("web.client.direct-server.warm-up.timeout", "200ms"), request -> Mono.never());
+
+        long start = System.nanoTime();
+        warmUp.run(null);
+
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        assertEquals(1, meterRegistry.get(WebClientWarmUp.DURATION).tag("outcome", "timeout").timer().count());
+    }
+
+    @Test
+    void eachEndpointGetsItsConnections() {
+        WebClientProperties properties = TestWebClients.properties(Map.of(
+                "web.client.direct-server.endpoints[0].url", "http://server1:8080",
+                "web.client.direct-server.endpoints[1].url", "http://server2:8080",
+                "web.client.direct-server.warm-up.enabled", "true",
+                "web.client.direct-server.warm-up.connections", "3"
+        ));
+        WebClientProperties.DirectServerProperties directServer = properties.getDirectServer();
+        LoadBalancer loadBalancer = new LoadBalancer(CustomizedWebClient.DIRECT_SERVER, directServer.getBaseUrl(), directServer.getEndpoints(),
+                directServer.getLoadBalancer(), null, meterRegistry);
+        Map<String, Integer> hosts = new ConcurrentHashMap<>();
+        CustomizedWebClient webClient = TestWebClients.client(properties, WebClient.builder()
+                .filter(loadBalancer.filter())
+                .exchangeFunction(request -> {
+                    hosts.merge(request.url().getHost(), 1, Integer::sum);
+                    return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+                }), meterRegistry);
+
+        new WebClientWarmUp(webClient, properties, null, null, meterRegistry).run(null);
+
+        assertEquals(Map.of("server1", 3, "server2", 3), hosts);
+    }
+
+    @Test
+    void theBackendsAreWarmedUp() {
+        WebClientProperties properties = TestWebClients.properties(Map.of(
+                "web.client.backends.orders.url", TestWebClients.URL,
+                "web.client.backends.orders.path.orders.uri", "/api/orders",
+                "web.client.backends.orders.warm-up.enabled", "true",
+                "web.client.backends.orders.warm-up.connections", "2",
+                "web.client.backends.orders.warm-up.paths", "/api/orders",
+                "web.client.backends.orders.warm-up.iterations", "1"
+        ));
+        WebClient orders = WebClient.builder()
+                .baseUrl(TestWebClients.URL)
+                .exchangeFunction(request -> {
+                    (request.method() == HttpMethod.HEAD ? heads : gets).incrementAndGet();
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body("{\"id\":1}")
+                            .build());
+                })
+                .build();
+        CustomizedWebClientRegistry backends = new CustomizedWebClientRegistry(Map.of("orders", new CustomizedWebClient("orders", null, orders,
+                new WebClientProperties(null, properties.getBackends().get("orders"), properties.getRetry(), null), meterRegistry)), List.of());
+
+        new WebClientWarmUp(null, properties, backends, null, meterRegistry).run(null);
+
+        assertEquals(2, heads.get());
+        assertEquals(1, gets.get());
+        assertEquals(1, meterRegistry.get(WebClientWarmUp.DURATION).tag("client", "orders").tag("outcome", "success").timer().count());
+    }
+
+    private WebClientWarmUp warmUp(Map<String, String> overrides, ExchangeFunction server) {
+        WebClientProperties properties = TestWebClients.properties(Map.of(
+                "web.client.direct-server.path.products.uri", "/api/products",
+                "web.client.direct-server.warm-up.enabled", "true",
+                "web.client.direct-server.warm-up.connections", "3",
+                "web.client.direct-server.warm-up.paths", "/api/products",
+                "web.client.direct-server.warm-up.iterations", "2"
+        ), overrides);
+
+        CustomizedWebClient webClient = TestWebClients.client(properties, server, meterRegistry);
+        return new WebClientWarmUp(webClient, properties, null, null, meterRegistry);
+    }
+}